@@ -0,0 +1,49 @@
+package com.oneinstep.haidu.admission;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+
+/**
+ * 任务流准入控制，在任何任务执行前决定接收、降级或拒绝整个任务流
+ * <p>
+ * 引擎对每个被接收的任务流调用一次 {@link #onFlowComplete}，对每个节点调用 {@link #onTaskQueued}。
+ * 同一个控制器被引擎的所有请求并发调用，实现必须线程安全。
+ */
+public interface AdmissionController {
+
+    /**
+     * 不做准入控制
+     */
+    AdmissionController NONE = (plan, context) -> AdmissionDecision.ADMIT;
+
+    /**
+     * 任务流开始执行前调用
+     *
+     * @param plan    执行计划
+     * @param context 请求上下文
+     * @return 准入决定
+     * @throws com.oneinstep.haidu.exception.FlowRejectedException 拒绝任务流
+     */
+    AdmissionDecision admit(ExecutionPlan plan, RequestContext context);
+
+    /**
+     * 被接收的任务流结束
+     *
+     * @param plan     执行计划
+     * @param context  请求上下文
+     * @param duration 从接收到结束的耗时，纳秒
+     * @param error    任务流异常，成功时为 null
+     */
+    default void onFlowComplete(ExecutionPlan plan, RequestContext context, long duration, Throwable error) {
+    }
+
+    /**
+     * 节点在线程池中排队结束
+     *
+     * @param taskId    任务ID
+     * @param queueTime 排队时间，纳秒
+     */
+    default void onTaskQueued(String taskId, long queueTime) {
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.oneinstep.haidu.admission;
+
+/**
+ * 准入决定，拒绝时由 {@link AdmissionController} 抛出 {@link com.oneinstep.haidu.exception.FlowRejectedException}
+ */
+public enum AdmissionDecision {
+    // 正常执行
+    ADMIT,
+    // 降级执行，任务可通过 RequestContext.isDegraded() 选择更轻量的处理
+    DEGRADE
+}
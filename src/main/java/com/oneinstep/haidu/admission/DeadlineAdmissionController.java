@@ -0,0 +1,171 @@
+package com.oneinstep.haidu.admission;
+
+import com.google.common.cache.CacheBuilder;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.FlowRejectedException;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按请求截止时间做准入控制
+ * <p>
+ * 每个执行计划统计成功任务流的耗时和结束时执行中的任务流数量（均为指数加权平均），按执行中的任务流数量的增长比例
+ * 放大历史耗时作为预计耗时；节点排队时间的指数加权平均作为预计耗时的下限，排队已经超过剩余时间的请求不会被接收。
+ * <p>
+ * 预计耗时不超过剩余时间时正常接收；超过剩余时间但不超过剩余时间 × degradeRatio 时降级接收；否则以
+ * {@link FlowRejectedException} 拒绝，任务流中的任务都不会执行。没有截止时间的请求只受执行中任务流数量上限的限制。
+ * <p>
+ * 统计以执行计划对象的身份作为 key，不依赖编排名称：未设置名称或同名的配置各自统计，配置版本变化后重新统计。
+ */
+@Slf4j
+public final class DeadlineAdmissionController implements AdmissionController {
+
+    // 默认不限制执行中的任务流数量
+    public static final int DEFAULT_MAX_IN_FLIGHT = Integer.MAX_VALUE;
+    // 预计耗时不超过剩余时间的 1.5 倍时降级接收
+    public static final double DEFAULT_DEGRADE_RATIO = 1.5;
+    // 执行中任务流数量的定点数精度
+    private static final int SCALE = 1024;
+
+    // 执行中的任务流数量
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 执行计划 -> 统计，weakKeys 使用 == 比较 key，计划被回收后统计随之回收
+    private final ConcurrentMap<ExecutionPlan, FlowStats> stats = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<ExecutionPlan, FlowStats>build()
+            .asMap();
+    // 节点排队时间的指数加权平均，纳秒
+    private final AtomicLong queueTime = new AtomicLong();
+    private final int maxInFlight;
+    private final double degradeRatio;
+
+    public DeadlineAdmissionController() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_DEGRADE_RATIO);
+    }
+
+    /**
+     * @param maxInFlight  执行中的任务流数量上限
+     * @param degradeRatio 降级接收的比例，不小于 1，等于 1 时不降级
+     */
+    public DeadlineAdmissionController(int maxInFlight, double degradeRatio) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0: " + maxInFlight);
+        }
+        if (degradeRatio < 1) {
+            throw new IllegalArgumentException("degradeRatio must not be less than 1: " + degradeRatio);
+        }
+        this.maxInFlight = maxInFlight;
+        this.degradeRatio = degradeRatio;
+    }
+
+    @Override
+    public AdmissionDecision admit(ExecutionPlan plan, RequestContext context) {
+        String arrangeName = plan.getArrangeName();
+        int current = inFlight.incrementAndGet();
+        if (current > maxInFlight) {
+            inFlight.decrementAndGet();
+            log.warn("flow rejected, too many flows in flight, arrangeName:{}", arrangeName);
+            throw new FlowRejectedException(arrangeName, FlowRejectedException.Reason.CONCURRENCY,
+                    "任务流被拒绝: 执行中的任务流数量达到上限 " + maxInFlight);
+        }
+        try {
+            return decide(plan, context, current);
+        } catch (RuntimeException e) {
+            // 未被接收的任务流不会回调 onFlowComplete，在这里归还计数
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private AdmissionDecision decide(ExecutionPlan plan, RequestContext context, int current) {
+        long remaining = context.getRemainingNanos();
+        if (remaining == Long.MAX_VALUE) {
+            return AdmissionDecision.ADMIT;
+        }
+        long predicted = predict(plan, current);
+        if (predicted <= remaining) {
+            return AdmissionDecision.ADMIT;
+        }
+        if (remaining > 0 && predicted <= remaining * degradeRatio) {
+            return AdmissionDecision.DEGRADE;
+        }
+        String arrangeName = plan.getArrangeName();
+        log.warn("flow rejected, predicted:{}ms, remaining:{}ms, arrangeName:{}",
+                TimeUnit.NANOSECONDS.toMillis(predicted), TimeUnit.NANOSECONDS.toMillis(remaining), arrangeName);
+        throw new FlowRejectedException(arrangeName, FlowRejectedException.Reason.DEADLINE,
+                "任务流被拒绝: 预计耗时 " + TimeUnit.NANOSECONDS.toMillis(predicted) + "ms 超过剩余时间 "
+                        + TimeUnit.NANOSECONDS.toMillis(remaining) + "ms");
+    }
+
+    @Override
+    public void onFlowComplete(ExecutionPlan plan, RequestContext context, long duration, Throwable error) {
+        // 包含当前任务流
+        int current = inFlight.getAndDecrement();
+        // 失败的任务流可能提前结束，不计入耗时
+        if (error == null) {
+            FlowStats flowStats = stats.get(plan);
+            if (flowStats == null) {
+                flowStats = stats.computeIfAbsent(plan, k -> new FlowStats());
+            }
+            update(flowStats.latency, duration);
+            update(flowStats.inFlight, (long) current * SCALE);
+        }
+    }
+
+    @Override
+    public void onTaskQueued(String taskId, long queueTime) {
+        update(this.queueTime, queueTime);
+    }
+
+    /**
+     * 获取执行中的任务流数量
+     *
+     * @return 执行中的任务流数量
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 按当前执行中的任务流数量预计任务流耗时
+     *
+     * @param plan     执行计划
+     * @param inFlight 执行中的任务流数量，包含待预计的任务流
+     * @return 预计耗时，纳秒，没有统计时为节点排队时间
+     */
+    public long predict(ExecutionPlan plan, int inFlight) {
+        long predicted = 0;
+        FlowStats flowStats = stats.get(plan);
+        if (flowStats != null) {
+            long observedInFlight = flowStats.inFlight.get();
+            double load = observedInFlight <= 0 ? 1 : Math.max(1, (double) inFlight * SCALE / observedInFlight);
+            predicted = (long) (flowStats.latency.get() * load);
+        }
+        return Math.max(predicted, queueTime.get());
+    }
+
+    /**
+     * 更新指数加权平均，权重 1/8
+     */
+    private static void update(AtomicLong average, long sample) {
+        long current;
+        long next;
+        do {
+            current = average.get();
+            next = current == 0 ? sample : current + (sample - current) / 8;
+        } while (!average.compareAndSet(current, next));
+    }
+
+    private static final class FlowStats {
+        // 任务流耗时，纳秒
+        private final AtomicLong latency = new AtomicLong();
+        // 任务流结束时执行中的任务流数量，定点数
+        private final AtomicLong inFlight = new AtomicLong();
+    }
+
+}
@@ -0,0 +1,258 @@
+package com.oneinstep.haidu.breaker;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个任务的熔断器，同一任务在引擎的所有请求中共享
+ * <p>
+ * 关闭状态下按滑动窗口统计执行结果，窗口内的执行次数达到 minimumCalls 且失败率达到阈值时打开；
+ * 打开状态下直接拒绝执行，经过 breakDuration 后进入半开状态，放行少量探测执行：
+ * 探测全部成功时关闭，任意一次失败时重新打开。
+ * <p>
+ * 半开状态的探测只应在真正执行之前通过 {@link #tryAcquire()} 获取，获取后必须以 {@link #onSuccess()}、{@link #onFailure()}
+ * 报告结果，或在没有执行时通过 {@link #release()} 归还，否则探测名额被占用，直到下一个 breakDuration 才重新开始探测。
+ * 只需判断是否快速失败时使用 {@link #isCallPermitted()}，不占用探测。
+ * <p>
+ * 状态和窗口均通过 CAS 更新，不加锁。窗口按时间分桶，桶过期时整体替换，替换瞬间的少量计数可能丢失，统计结果是近似值。
+ */
+public final class CircuitBreaker {
+
+    // 默认失败率阈值，百分比
+    public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    // 默认计算失败率所需的最少执行次数
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    // 默认打开状态持续时间，毫秒
+    public static final long DEFAULT_BREAK_DURATION = 5000L;
+    // 滑动窗口的桶数量
+    private static final int BUCKETS = 10;
+    // 滑动窗口长度，纳秒
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(10);
+    // 每个桶的时间跨度，纳秒
+    private static final long BUCKET_SPAN = WINDOW / BUCKETS;
+    // 半开状态放行的探测次数
+    private static final int PROBES = 3;
+
+    // 任务ID
+    @Getter
+    private final String taskId;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long breakDuration;
+    private final AtomicReference<Status> status;
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+    /**
+     * @param taskId               任务ID
+     * @param failureRateThreshold 失败率阈值，百分比，1 到 100
+     * @param minimumCalls         计算失败率所需的最少执行次数
+     * @param breakDurationMillis  打开状态持续时间，毫秒
+     */
+    public CircuitBreaker(String taskId, int failureRateThreshold, int minimumCalls, long breakDurationMillis) {
+        if (failureRateThreshold < 1 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("failureRateThreshold must be between 1 and 100: " + failureRateThreshold);
+        }
+        if (minimumCalls < 1 || breakDurationMillis <= 0) {
+            throw new IllegalArgumentException("minimumCalls and breakDuration must be positive");
+        }
+        this.taskId = taskId;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.breakDuration = TimeUnit.MILLISECONDS.toNanos(breakDurationMillis);
+        this.status = new AtomicReference<>(new Status(State.CLOSED, System.nanoTime()));
+    }
+
+    /**
+     * 是否允许执行，半开状态下每次返回 true 都占用一次探测
+     *
+     * @return 是否允许执行
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long now) {
+        while (true) {
+            Status current = status.get();
+            if (current.state == State.CLOSED) {
+                return true;
+            }
+            if (current.state == State.HALF_OPEN && current.takeProbe()) {
+                return true;
+            }
+            // 打开状态持续时间已过，或半开状态的探测在持续时间内没有结果（例如被线程池拒绝），重新开始一轮探测
+            if (now - current.since < breakDuration) {
+                return false;
+            }
+            status.compareAndSet(current, new Status(State.HALF_OPEN, now));
+        }
+    }
+
+    /**
+     * 是否允许执行，只查看状态，不占用探测
+     *
+     * @return 关闭状态、半开状态仍有探测名额或打开状态已过持续时间时返回 true
+     */
+    public boolean isCallPermitted() {
+        return isCallPermitted(System.nanoTime());
+    }
+
+    boolean isCallPermitted(long now) {
+        Status current = status.get();
+        return current.state == State.CLOSED
+                || current.state == State.HALF_OPEN && current.probes.get() > 0
+                || now - current.since >= breakDuration;
+    }
+
+    /**
+     * 归还 {@link #tryAcquire()} 占用、但最终没有执行的探测，关闭状态下没有影响
+     */
+    public void release() {
+        Status current = status.get();
+        if (current.state == State.HALF_OPEN) {
+            current.probes.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一次成功的执行
+     */
+    public void onSuccess() {
+        onSuccess(System.nanoTime());
+    }
+
+    void onSuccess(long now) {
+        bucket(now).calls.incrementAndGet();
+        Status current = status.get();
+        if (current.state == State.HALF_OPEN && current.successes.incrementAndGet() >= PROBES) {
+            status.compareAndSet(current, new Status(State.CLOSED, now));
+        }
+    }
+
+    /**
+     * 记录一次失败或超时的执行
+     */
+    public void onFailure() {
+        onFailure(System.nanoTime());
+    }
+
+    void onFailure(long now) {
+        Bucket bucket = bucket(now);
+        bucket.calls.incrementAndGet();
+        bucket.failures.incrementAndGet();
+        Status current = status.get();
+        if (current.state == State.HALF_OPEN
+                || current.state == State.CLOSED && isFailureRateExceeded(now, current.since)) {
+            status.compareAndSet(current, new Status(State.OPEN, now));
+        }
+    }
+
+    /**
+     * 窗口内的失败率是否达到阈值，只统计进入关闭状态之后的桶
+     */
+    private boolean isFailureRateExceeded(long now, long closedSince) {
+        long epoch = Math.floorDiv(now, BUCKET_SPAN);
+        long firstEpoch = Math.max(epoch - BUCKETS + 1, Math.floorDiv(closedSince, BUCKET_SPAN));
+        long calls = 0;
+        long failures = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch >= firstEpoch && bucket.epoch <= epoch) {
+                calls += bucket.calls.get();
+                failures += bucket.failures.get();
+            }
+        }
+        return calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls;
+    }
+
+    /**
+     * 获取当前时刻所在的桶，桶已过期时替换为新桶
+     */
+    private Bucket bucket(long now) {
+        long epoch = Math.floorDiv(now, BUCKET_SPAN);
+        int slot = (int) Math.floorMod(epoch, (long) BUCKETS);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.epoch == epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * 获取当前状态，打开状态在持续时间过后的第一次 tryAcquire 时才转为半开
+     *
+     * @return 当前状态
+     */
+    public State getState() {
+        return status.get().state;
+    }
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        // 正常执行并统计结果
+        CLOSED,
+        // 拒绝执行
+        OPEN,
+        // 放行少量探测
+        HALF_OPEN
+    }
+
+    /**
+     * 不可变的状态快照，状态切换时整体替换，探测计数随之重置
+     */
+    private static final class Status {
+
+        private final State state;
+        // 进入该状态的时刻，纳秒
+        private final long since;
+        // 半开状态剩余的探测次数
+        private final AtomicInteger probes = new AtomicInteger(PROBES);
+        // 半开状态已成功的探测次数
+        private final AtomicInteger successes = new AtomicInteger();
+
+        private Status(State state, long since) {
+            this.state = state;
+            this.since = since;
+        }
+
+        /**
+         * 占用一次探测，名额用完时不再递减，归还的名额可以再次使用
+         */
+        private boolean takeProbe() {
+            int current;
+            do {
+                current = probes.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!probes.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+
+    /**
+     * 滑动窗口中的一个时间桶
+     */
+    private static final class Bucket {
+
+        private final long epoch;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+}
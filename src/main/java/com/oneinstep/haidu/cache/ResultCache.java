@@ -0,0 +1,257 @@
+package com.oneinstep.haidu.cache;
+
+import com.oneinstep.haidu.result.Result;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个任务节点的结果缓存，同一任务配置的所有请求共享
+ * <p>
+ * 采用分段 LRU（SLRU）淘汰：新写入的结果进入试用段，在试用段期间被命中过的结果晋升到保护段，保护段占总容量的 80%，
+ * 保护段满时最早晋升且之后没有再被命中的结果降回试用段。只访问一次的结果只能在试用段中竞争，不会挤出反复命中的热点结果。
+ * 每个结果在写入 ttl 之后过期，读取到过期结果时按未命中处理并移除。命中时返回的 {@link Result} 是同一个对象，下游任务应只读使用。
+ * <p>
+ * 读取不加锁：结果保存在 ConcurrentHashMap 中，命中只标记该结果被访问过，晋升和降级推迟到写入时淘汰的过程中处理，
+ * 两个分段的顺序只在写入时由缓存自身的锁维护。命中、未命中和淘汰次数用 LongAdder 统计。
+ */
+public final class ResultCache {
+
+    // 默认的最大缓存数量
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    // 保护段占总容量的比例
+    private static final double PROTECTED_RATIO = 0.8;
+
+    // 任务ID
+    @Getter
+    private final String taskId;
+    // 最大缓存数量
+    @Getter
+    private final int maxSize;
+    private final int protectedMaxSize;
+    private final long ttl;
+    // 缓存的结果，读取不加锁
+    private final ConcurrentHashMap<Object, Entry> data = new ConcurrentHashMap<>();
+    // 试用段，按写入顺序排列，由缓存的锁保护
+    private final LinkedHashMap<Object, Entry> probation = new LinkedHashMap<>();
+    // 保护段，按晋升顺序排列，由缓存的锁保护
+    private final LinkedHashMap<Object, Entry> protectedSegment = new LinkedHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param taskId    任务ID
+     * @param maxSize   最大缓存数量
+     * @param ttlMillis 结果的有效时间，毫秒
+     */
+    public ResultCache(String taskId, int maxSize, long ttlMillis) {
+        if (maxSize < 1 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxSize and ttl must be positive");
+        }
+        this.taskId = taskId;
+        this.maxSize = maxSize;
+        this.protectedMaxSize = (int) (maxSize * PROTECTED_RATIO);
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * 由解析后的任务参数和选定的请求参数生成缓存键，参数在生成时复制
+     *
+     * @param params       本次请求解析后的任务参数
+     * @param requestKeys  参与缓存键的请求参数名称
+     * @param requestParam 请求参数
+     * @return 缓存键
+     */
+    public static Object key(Map<String, Object> params, List<String> requestKeys, Map<String, Object> requestParam) {
+        Map<String, Object> selected = Collections.emptyMap();
+        if (requestKeys != null && !requestKeys.isEmpty()) {
+            selected = new HashMap<>();
+            for (String requestKey : requestKeys) {
+                selected.put(requestKey, requestParam.get(requestKey));
+            }
+        }
+        return Arrays.asList(params == null ? Collections.emptyMap() : new HashMap<>(params), selected);
+    }
+
+    /**
+     * 读取缓存的结果
+     *
+     * @param key 缓存键
+     * @return 缓存的结果，未命中或已过期时返回 null
+     */
+    public Result<?> get(Object key) {
+        return get(key, System.nanoTime());
+    }
+
+    Result<?> get(Object key, long now) {
+        Entry entry = data.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(now)) {
+            // 分段中留下的过期结果在写入时清理
+            if (data.remove(key, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        // 已标记时不再写入，热点结果的读取不产生缓存行争用
+        if (!entry.accessed) {
+            entry.accessed = true;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 写入结果，已存在时更新结果和过期时间
+     *
+     * @param key    缓存键
+     * @param result 结果
+     */
+    public void put(Object key, Result<?> result) {
+        put(key, result, System.nanoTime());
+    }
+
+    synchronized void put(Object key, Result<?> result, long now) {
+        Entry entry = new Entry(result, now + ttl);
+        data.put(key, entry);
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, entry);
+            return;
+        }
+        probation.remove(key);
+        probation.put(key, entry);
+        evict();
+    }
+
+    /**
+     * 超过容量时从试用段最早写入的结果开始处理：被命中过的晋升到保护段，没有被命中过的淘汰，试用段为空时淘汰保护段最早晋升的结果
+     */
+    private void evict() {
+        while (probation.size() + protectedSegment.size() > maxSize) {
+            if (data.size() <= maxSize) {
+                // 超出的部分是读取时已移除的过期结果
+                purge(probation);
+                purge(protectedSegment);
+                return;
+            }
+            LinkedHashMap<Object, Entry> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<Map.Entry<Object, Entry>> eldest = segment.entrySet().iterator();
+            Map.Entry<Object, Entry> victim = eldest.next();
+            eldest.remove();
+            Object key = victim.getKey();
+            Entry entry = victim.getValue();
+            if (data.get(key) != entry) {
+                continue;
+            }
+            if (segment == probation && entry.accessed) {
+                promote(key, entry);
+                continue;
+            }
+            data.remove(key, entry);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 试用段中被命中过的结果晋升到保护段，保护段满时最早晋升的结果降回试用段，降级前再次被命中过的结果留在保护段
+     */
+    private void promote(Object key, Entry entry) {
+        entry.accessed = false;
+        protectedSegment.put(key, entry);
+        while (protectedSegment.size() > protectedMaxSize) {
+            Iterator<Map.Entry<Object, Entry>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<Object, Entry> demoted = eldest.next();
+            eldest.remove();
+            Entry value = demoted.getValue();
+            if (data.get(demoted.getKey()) != value) {
+                continue;
+            }
+            boolean accessed = value.accessed;
+            value.accessed = false;
+            if (accessed) {
+                protectedSegment.put(demoted.getKey(), value);
+            } else {
+                probation.put(demoted.getKey(), value);
+            }
+        }
+    }
+
+    /**
+     * 移除分段中已不在缓存里的结果
+     */
+    private void purge(LinkedHashMap<Object, Entry> segment) {
+        segment.entrySet().removeIf(e -> data.get(e.getKey()) != e.getValue());
+    }
+
+    /**
+     * 获取当前缓存的结果数量，包括尚未被读取到的过期结果
+     *
+     * @return 缓存的结果数量
+     */
+    public int size() {
+        return data.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 获取因容量不足被淘汰的数量，不包括过期
+     *
+     * @return 淘汰的数量
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 获取读取时发现过期而移除的数量
+     *
+     * @return 过期的数量
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * 缓存的结果和过期时刻
+     */
+    private static final class Entry {
+
+        private final Result<?> value;
+        // 过期时刻，纳秒
+        private final long expireAt;
+        // 进入当前分段之后是否被命中过，读取时不加锁写入，淘汰时读取并清除
+        private volatile boolean accessed;
+
+        private Entry(Result<?> value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expireAt >= 0;
+        }
+    }
+
+}
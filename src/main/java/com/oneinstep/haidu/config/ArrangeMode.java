@@ -0,0 +1,16 @@
+package com.oneinstep.haidu.config;
+
+/**
+ * 编排模式
+ */
+public enum ArrangeMode {
+    /**
+     * 分组模式（默认）：第一组全部完成后执行中间各组，中间各组全部完成后执行最后一组
+     */
+    GROUP,
+    /**
+     * 全局模式：所有组合并为一个 DAG，声明了 dependsOn 的任务只等待其实际依赖的任务，
+     * 未声明的任务仍按分组模式等待上一阶段全部完成
+     */
+    GLOBAL
+}
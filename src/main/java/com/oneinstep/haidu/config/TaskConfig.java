@@ -18,6 +18,10 @@ public class TaskConfig implements Serializable {
     private String arrangeName;
     // 编排描述
     private String description;
+    // 配置版本，修改已执行过的配置后需要变更版本，引擎才会重新编译执行计划
+    private String version;
+    // 编排模式，为空时为分组模式
+    private ArrangeMode arrangeMode;
     // 编排规则
     private List<List<String>> arrangeRule;
     // 任务详情
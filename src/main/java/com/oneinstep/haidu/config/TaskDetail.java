@@ -1,5 +1,6 @@
 package com.oneinstep.haidu.config;
 
+import com.oneinstep.haidu.result.Result;
 import lombok.Data;
 
 import java.io.Serial;
@@ -21,8 +22,56 @@ public class TaskDetail implements Serializable {
     private String fullClassName;
     // 重试次数
     private Integer retries;
+    // 首次重试等待时间（毫秒），为空时为 100
+    private Long retryDelay;
+    // 最大重试等待时间（毫秒），为空时为 1000
+    private Long maxRetryDelay;
+    // 自定义重试策略的全限定类名，需实现 RetryStrategy 并提供无参构造函数，设置后忽略 retryDelay 和 maxRetryDelay
+    private String retryStrategy;
     // 超时时间
     private Long timeout;
+    // 超时后是否中断执行任务的线程
+    private Boolean interruptOnTimeout;
+    // 执行任务的线程池名称，需先注册到引擎；为空时使用默认线程池，为 INLINE 时在完成前置任务的线程上直接执行
+    private String executor;
+    // 自适应并发限制算法，aimd 或 gradient，限制该任务在所有请求中同时执行的数量；为空时不限制
+    private String concurrencyLimit;
+    // 自适应并发上限的最大值，默认 200
+    private Integer maxConcurrency;
+    // 每秒允许执行的次数，在引擎的所有请求中共享；为空时不限流
+    private Double rateLimit;
+    // 限流的突发容量，为空时为一秒的令牌数量
+    private Integer rateLimitBurst;
+    // 令牌不足时最多等待的时间（毫秒），等待期间不占用线程；为空或 0 时不等待，节点以 RateLimitedException 失败
+    private Long rateLimitWait;
+    // 是否合并并发调用：同一任务、解析后参数相同的并发请求共享一次执行及其结果，只适合幂等的读任务
+    private Boolean coalesce;
+    // 结果缓存的有效时间（毫秒），设置后同一任务、参数相同的请求在有效期内直接使用缓存的成功结果；为空时不缓存
+    private Long cacheTtl;
+    // 最多缓存的结果数量，超过后按分段 LRU 淘汰，为空时为 1000
+    private Integer cacheMaxSize;
+    // 参与缓存键的请求参数名称，缓存键默认只包含解析后的任务参数
+    private List<String> cacheKeys;
+    // 批量任务每批最多合并的调用数量，为空时为 100
+    private Integer maxBatchSize;
+    // 批量任务收集调用的窗口（毫秒），精度为引擎定时器的 10ms，为空时为 10
+    private Long batchWindow;
+    // 是否开启对冲，只适合幂等的读任务：执行超过对冲延迟仍未完成时再发起一次调用，先成功的结果生效
+    private Boolean hedge;
+    // 对冲延迟取该任务近期耗时的分位数，为空时为 95
+    private Double hedgePercentile;
+    // 是否开启熔断，熔断器在引擎的所有请求中共享
+    private Boolean circuitBreaker;
+    // 熔断的失败率阈值（百分比），为空时为 50
+    private Integer failureRateThreshold;
+    // 计算失败率所需的最少执行次数，为空时为 20
+    private Integer minimumCalls;
+    // 熔断打开后持续的时间（毫秒），之后放行少量探测，为空时为 5000
+    private Long breakDuration;
+    // 熔断打开时使用的降级结果，为空时节点以 CircuitBreakerOpenException 失败
+    private Result<Object> fallback;
+    // 跨编排组的前置任务ID，全局模式下声明后不再等待上一阶段全部完成
+    private List<String> dependsOn;
     // 原始任务参数
     private List<TaskParam> taskParams;
     // 处理后的任务参数
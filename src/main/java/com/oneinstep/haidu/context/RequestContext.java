@@ -7,6 +7,7 @@ import lombok.Data;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 任务执行上下文
@@ -19,6 +20,8 @@ public class RequestContext {
     private TaskConfig taskConfig;
     // 保存任务结果
     private Map<String, Result<?>> taskResultMap = new ConcurrentHashMap<>();
+    // 无状态任务本次请求解析后的参数
+    private final Map<String, Map<String, Object>> taskParamsMap = new ConcurrentHashMap<>();
 
     // 任务引擎是否已启动
     private volatile boolean engineStarted = false;
@@ -26,6 +29,12 @@ public class RequestContext {
     // 任务引擎是否已停止
     private volatile boolean engineStopped = false;
 
+    // 请求截止时刻，以 System.nanoTime() 为基准，null 表示没有截止时间
+    private volatile Long deadline;
+
+    // 是否被准入控制降级执行，任务可据此选择更轻量的处理
+    private volatile boolean degraded = false;
+
     /**
      * 运行时 task 类缓存，避免重复反射创建
      */
@@ -38,6 +47,26 @@ public class RequestContext {
         taskInstanceMap.clear();
     }
 
+    /**
+     * 设置请求截止时间，从当前时刻开始计算
+     *
+     * @param timeout 距离截止的时间
+     * @param unit    时间单位
+     */
+    public void setDeadlineAfter(long timeout, TimeUnit unit) {
+        this.deadline = System.nanoTime() + unit.toNanos(timeout);
+    }
+
+    /**
+     * 获取距离截止时刻的剩余时间
+     *
+     * @return 剩余纳秒数，已过截止时刻时为负数，没有截止时间时为 Long.MAX_VALUE
+     */
+    public long getRemainingNanos() {
+        Long current = deadline;
+        return current == null ? Long.MAX_VALUE : current - System.nanoTime();
+    }
+
     /**
      * 获取任务实例
      *
@@ -29,6 +29,8 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
     protected Integer retries = 0; // default retries is 0
     // 任务超时时间
     protected Long timeout = 1000L; // default timeout is 1000ms
+    // 是否为无状态任务，无状态任务在请求间共享同一实例
+    private final boolean stateless = getClass().isAnnotationPresent(StatelessTask.class);
 
     /**
      * 任务执行逻辑
@@ -106,6 +108,12 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
         return Consumer.super.andThen(after);
     }
 
+    /**
+     * 单独执行任务，在当前线程内阻塞重试，任务返回后检查是否超时
+     * 由引擎执行时超时由定时器强制执行，重试由 {@link com.oneinstep.haidu.exception.RetryStrategy} 通过定时器调度
+     *
+     * @param requestContext 请求上下文
+     */
     @Override
     public final void accept(RequestContext requestContext) {
         int attempts = 0;
@@ -113,12 +121,7 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
         long startTime = System.currentTimeMillis();
 
         // 处理任务参数，TYPE 为 CONTEXT
-        getParams().forEach((key, value) -> {
-            if (value instanceof String str && str.startsWith("#(") && str.endsWith(")#")) {
-                getParams().put(key, requestContext.getRequestParam()
-                        .get(str.substring(2, str.length() - 2)));
-            }
-        });
+        resolveContextParams(requestContext);
 
         // 重试机制
         while (attempts <= getRetries() && !success) {
@@ -133,7 +136,7 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
                     break;
                 }
                 // 检查任务执行结果并存储
-                success = checkAndPutResult(requestContext, result);
+                success = checkAndPutResult(requestContext, result, null);
 
             } catch (Exception e) {
                 if (attempts >= getRetries()) {
@@ -146,6 +149,70 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
         }
     }
 
+    /**
+     * 引擎执行任务前的准备，每次请求只调用一次
+     *
+     * @param requestContext 请求上下文
+     */
+    final void prepare(RequestContext requestContext) {
+        // 处理任务参数，TYPE 为 CONTEXT
+        resolveContextParams(requestContext);
+    }
+
+    /**
+     * 引擎执行一次任务，重试由引擎调度
+     * 节点已超时时结果不会写入上下文
+     *
+     * @param requestContext 请求上下文
+     * @param invocation     本次节点执行状态
+     * @return 是否完成，结果校验未通过时返回 false
+     */
+    final boolean invokeOnce(RequestContext requestContext, TaskInvocation invocation) {
+        // 任务执行前置处理
+        beforeInvoke(requestContext);
+        // 任务执行
+        Result<T> result = invoke(requestContext);
+        // 检查任务执行结果并存储
+        return checkAndPutResult(requestContext, result, invocation);
+    }
+
+    /**
+     * 处理 CONTEXT 类型的任务参数
+     * 有状态任务直接替换实例参数；无状态任务的实例在请求间共享，解析结果保存在请求上下文中
+     *
+     * @param requestContext 请求上下文
+     */
+    private void resolveContextParams(RequestContext requestContext) {
+        if (!stateless) {
+            getParams().forEach((key, value) -> {
+                if (isContextParam(value)) {
+                    getParams().put(key, getContextValue(requestContext, (String) value));
+                }
+            });
+            return;
+        }
+        Map<String, Object> resolved = null;
+        for (Map.Entry<String, Object> entry : getParams().entrySet()) {
+            if (isContextParam(entry.getValue())) {
+                if (resolved == null) {
+                    resolved = new HashMap<>(getParams());
+                }
+                resolved.put(entry.getKey(), getContextValue(requestContext, (String) entry.getValue()));
+            }
+        }
+        if (resolved != null) {
+            requestContext.getTaskParamsMap().put(getTaskId(), resolved);
+        }
+    }
+
+    private static boolean isContextParam(Object value) {
+        return value instanceof String str && str.startsWith("#(") && str.endsWith(")#");
+    }
+
+    private static Object getContextValue(RequestContext requestContext, String value) {
+        return requestContext.getRequestParam().get(value.substring(2, value.length() - 2));
+    }
+
     /**
      * 检查任务是否超时
      *
@@ -162,14 +229,24 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
      *
      * @param requestContext 请求上下文
      * @param result         任务执行结果
+     * @param invocation     本次节点执行状态，单独调用时为 null
      * @return 是否成功
      */
-    private boolean checkAndPutResult(RequestContext requestContext, Result<T> result) {
+    final boolean checkAndPutResult(RequestContext requestContext, Result<T> result, TaskInvocation invocation) {
         if (getLogger().isInfoEnabled()) {
             getLogger().info("The Result of taskId:{} -> {}", getTaskId(), JSON.toJSONString(result));
         }
         if (checkResult(requestContext, result)) {
+            if (invocation != null && !invocation.complete()) {
+                // 节点已超时或已由对冲调用完成，丢弃迟到的结果
+                getLogger().warn("Result of taskId:{} discarded after the node completed.", getTaskId());
+                return true;
+            }
             requestContext.getTaskResultMap().putIfAbsent(getTaskId(), result);
+            if (invocation != null) {
+                // 开启结果缓存时，只有完成节点的结果写入缓存
+                invocation.cacheResult(result);
+            }
             afterInvoke(requestContext);
             return true;
         } else {
@@ -224,4 +301,25 @@ public abstract class AbstractTask<T> implements Consumer<RequestContext> {
     public Map<String, Object> getParams() {
         return Optional.ofNullable(this.params).orElse(new HashMap<>());
     }
+
+    /**
+     * 获取本次请求的任务参数，CONTEXT 类型的参数已按请求解析
+     * 无状态任务必须使用该方法读取参数
+     *
+     * @param requestContext 请求上下文
+     * @return 任务参数
+     */
+    public Map<String, Object> getParams(RequestContext requestContext) {
+        Map<String, Object> resolved = requestContext.getTaskParamsMap().get(getTaskId());
+        return resolved != null ? resolved : getParams();
+    }
+
+    /**
+     * 是否为无状态任务
+     *
+     * @return 是否被 {@link StatelessTask} 标记
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
 }
@@ -0,0 +1,62 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.result.Result;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步任务，执行逻辑返回 {@link CompletionStage}，适合调用非阻塞客户端的任务
+ * <p>
+ * 由引擎执行时，任务线程在 invokeAsync 返回后立即释放，等待期间不占用任何线程；
+ * 结果校验、结果存储、afterInvoke、重试和下游调度在异步调用完成的线程上进行。
+ * 超时、重试和 {@link #checkResult(RequestContext, Result)} 与同步任务一致，
+ * 配置 interruptOnTimeout 时，超时会取消尚未完成的异步调用。
+ * <p>
+ * 单独调用 {@link #accept(RequestContext)} 时会阻塞等待异步调用完成。
+ *
+ * @param <T> 结果类型
+ */
+public abstract class AsyncAbstractTask<T> extends AbstractTask<T> {
+
+    /**
+     * 异步任务执行逻辑，不应阻塞调用线程
+     *
+     * @param requestContext 请求上下文
+     * @return 任务执行结果
+     */
+    protected abstract CompletionStage<Result<T>> invokeAsync(RequestContext requestContext);
+
+    /**
+     * 同步等待异步调用的结果，仅在单独调用 {@link #accept(RequestContext)} 时使用
+     *
+     * @param requestContext 请求上下文
+     * @return 任务执行结果
+     */
+    @Override
+    protected final Result<T> invoke(RequestContext requestContext) {
+        return invokeAsync(requestContext).toCompletableFuture().join();
+    }
+
+    /**
+     * 引擎异步执行一次任务
+     *
+     * @param requestContext 请求上下文
+     * @param invocation     本次节点执行状态
+     * @return 是否完成，结果校验未通过时为 false
+     */
+    final CompletableFuture<Boolean> invokeOnceAsync(RequestContext requestContext, TaskInvocation invocation) {
+        // 任务执行前置处理
+        beforeInvoke(requestContext);
+        // 任务执行
+        CompletableFuture<Result<T>> future = invokeAsync(requestContext).toCompletableFuture();
+        invocation.setPending(future);
+        // 检查任务执行结果并存储
+        return future.thenApply(result -> {
+            invocation.setPending(null);
+            return checkAndPutResult(requestContext, result, invocation);
+        });
+    }
+
+}
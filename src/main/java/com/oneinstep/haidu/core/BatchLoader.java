@@ -0,0 +1,183 @@
+package com.oneinstep.haidu.core;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 跨请求收集 {@link BatchingTask} 的单个调用，合并为一次批量调用
+ * <p>
+ * 窗口内第一个键到达时注册定时器，窗口到期或收集的键达到批量上限时发出批量调用，以先到者为准。
+ * 同一批次中相同的键只加载一次。批量上限触发时在到达的任务线程上发出调用，窗口到期时提交到任务的线程池（INLINE 任务提交到默认线程池），不占用定时器线程。
+ * 批量调用的结果按键分发给各个调用，批量调用失败时同一批次的调用全部失败。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+@Slf4j
+public final class BatchLoader<K, V> {
+
+    // 任务ID
+    @Getter
+    private final String taskId;
+    // 批量调用
+    private final Function<List<K>, CompletionStage<Map<K, V>>> batchFunction;
+    // 每批最多的键数量
+    @Getter
+    private final int maxBatchSize;
+    // 收集窗口，纳秒
+    private final long window;
+    // 窗口到期时发出批量调用的线程池
+    private final Executor executor;
+    private final HashedWheelTimer timer;
+    // 正在收集的批次
+    private Batch<K, V> current;
+    // 发出的批量调用次数
+    private final LongAdder batches = new LongAdder();
+    // 收到的单个调用次数
+    private final LongAdder loads = new LongAdder();
+
+    BatchLoader(String taskId, Function<List<K>, CompletionStage<Map<K, V>>> batchFunction, int maxBatchSize,
+                long windowMillis, Executor executor, HashedWheelTimer timer) {
+        this.taskId = taskId;
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.window = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.executor = executor;
+        this.timer = timer;
+    }
+
+    /**
+     * 加入正在收集的批次
+     *
+     * @param key 键
+     * @return 该键的值，批量调用结果中没有该键时为 null
+     */
+    CompletableFuture<V> load(K key) {
+        loads.increment();
+        Batch<K, V> opened = null;
+        Batch<K, V> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            if (current == null) {
+                current = new Batch<>();
+                opened = current;
+            }
+            future = current.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (current.futures.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        } else if (opened != null) {
+            Batch<K, V> batch = opened;
+            try {
+                batch.timeout = timer.newTimeout(() -> flush(batch), window, TimeUnit.NANOSECONDS);
+            } catch (IllegalStateException e) {
+                // 引擎已关闭，定时器不再接受任务，不再等待窗口，在当前线程发出批量调用
+                if (detach(batch)) {
+                    dispatch(batch);
+                }
+            }
+        }
+        return future;
+    }
+
+    /**
+     * 停止收集该批次
+     *
+     * @return 批次仍在收集时返回 true，已因达到批量上限或窗口到期发出时返回 false
+     */
+    private synchronized boolean detach(Batch<K, V> batch) {
+        if (current != batch) {
+            return false;
+        }
+        current = null;
+        return true;
+    }
+
+    /**
+     * 窗口到期，批次仍在收集时提交到线程池发出批量调用
+     */
+    private void flush(Batch<K, V> batch) {
+        if (!detach(batch)) {
+            return;
+        }
+        try {
+            executor.execute(() -> dispatch(batch));
+        } catch (RuntimeException e) {
+            log.error("taskId:{} batch rejected by executor.", taskId, e);
+            batch.fail(e);
+        }
+    }
+
+    /**
+     * 发出批量调用并按键分发结果
+     */
+    private void dispatch(Batch<K, V> batch) {
+        HashedWheelTimer.Timeout timeout = batch.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        batches.increment();
+        CompletionStage<Map<K, V>> stage;
+        try {
+            stage = batchFunction.apply(new ArrayList<>(batch.futures.keySet()));
+        } catch (Throwable e) {
+            batch.fail(e);
+            return;
+        }
+        stage.whenComplete((values, e) -> {
+            if (e != null) {
+                batch.fail(e);
+                return;
+            }
+            batch.futures.forEach((key, future) -> future.complete(values == null ? null : values.get(key)));
+        });
+    }
+
+    /**
+     * 获取发出的批量调用次数
+     *
+     * @return 批量调用次数
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * 获取收到的单个调用次数，与批量调用次数之比即平均每批合并的调用数量
+     *
+     * @return 单个调用次数
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * 一个批次，发出之前由 BatchLoader 的锁保护
+     */
+    private static final class Batch<K, V> {
+
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        // 窗口定时任务，批量上限触发时取消
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private void fail(Throwable e) {
+            futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.result.Result;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 批量任务，适合按ID查询单个实体的任务
+ * <p>
+ * 每个请求只提供要查询的键，由引擎在同一任务的并发请求之间收集键，在 batchWindow 窗口到期或达到 maxBatchSize 时
+ * 合并为一次 {@link #loadBatch(List)} 调用，结果按键写回各自请求的 taskResultMap。
+ * 超时、重试、结果校验和 afterInvoke 与 {@link AsyncAbstractTask} 一致，每个请求单独处理；超时只取消本请求的等待，不影响批量调用。
+ * <p>
+ * 批量收集器按任务配置中的节点创建，只合并同一配置中该任务的请求；批量调用使用第一个创建批量收集器的任务实例，
+ * 在这些请求之间共享，{@link #loadBatch(List)} 不能依赖请求状态。配置版本变化后按新的批量上限和窗口重新创建。
+ * 单独调用 {@link #accept(RequestContext)} 时不收集，直接以单个键调用 {@link #loadBatch(List)}。
+ *
+ * @param <K> 键类型
+ * @param <T> 结果类型
+ */
+public abstract class BatchingTask<K, T> extends AsyncAbstractTask<T> {
+
+    // 默认每批最多合并的调用数量
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    // 默认收集窗口，毫秒
+    public static final long DEFAULT_BATCH_WINDOW = 10L;
+
+    // 引擎共享的批量收集器，单独调用时为 null
+    private volatile BatchLoader<K, T> loader;
+
+    /**
+     * 获取本次请求要查询的键
+     *
+     * @param requestContext 请求上下文
+     * @return 键
+     */
+    protected abstract K getKey(RequestContext requestContext);
+
+    /**
+     * 批量查询，不应阻塞调用线程
+     *
+     * @param keys 去重后的键
+     * @return 键到值的映射，缺少的键对应的结果数据为 null
+     */
+    protected abstract CompletionStage<Map<K, T>> loadBatch(List<K> keys);
+
+    /**
+     * 将查询到的值包装为任务结果，可覆盖以区分查询不到的键
+     *
+     * @param key   键
+     * @param value 值，批量查询结果中没有该键时为 null
+     * @return 任务执行结果
+     */
+    protected Result<T> toResult(K key, T value) {
+        return Result.success(value);
+    }
+
+    @Override
+    protected final CompletionStage<Result<T>> invokeAsync(RequestContext requestContext) {
+        K key = getKey(requestContext);
+        BatchLoader<K, T> current = loader;
+        CompletableFuture<T> value = current != null ? current.load(key)
+                : loadBatch(List.of(key)).toCompletableFuture().thenApply(values -> values == null ? null : values.get(key));
+        return value.thenApply(v -> toResult(key, v));
+    }
+
+    void setLoader(BatchLoader<K, T> loader) {
+        this.loader = loader;
+    }
+
+}
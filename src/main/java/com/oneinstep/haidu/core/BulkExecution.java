@@ -0,0 +1,227 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.FlowRejectedException;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 批量执行同一任务配置的多个请求上下文
+ * <p>
+ * 执行计划只获取一次，按需从迭代器中取出上下文启动任务流，同时执行的任务流不超过 maxInFlight，
+ * 任务流完成时回调并补充下一个，调用方不需要自行控制并发，也不会一次性持有所有任务流。
+ * <p>
+ * 补充任务流由一个线程循环完成：任务流同步完成（例如 INLINE 任务）时只记录一次补充请求，由正在补充的线程继续处理，
+ * 不会随上下文数量递归加深调用栈。迭代器只在补充时访问，不需要线程安全。
+ * <p>
+ * 任务流被准入控制或调度策略以 {@link FlowRejectedException} 拒绝时，该上下文按失败回调，并暂停从迭代器取出上下文：
+ * 有执行中的任务流时等它正常完成后恢复；没有时通过引擎定时器退避后恢复，退避时间从 10ms 开始翻倍，最长 1 秒，
+ * 任务流正常完成后重置。过载期间不会把剩余的上下文全部取出并逐个拒绝。
+ */
+@Slf4j
+public final class BulkExecution {
+
+    // 被拒绝后的最短退避时间，毫秒
+    private static final long MIN_BACKOFF = 10L;
+    // 被拒绝后的最长退避时间，毫秒
+    private static final long MAX_BACKOFF = 1000L;
+
+    private final TaskEngine engine;
+    private final ExecutionPlan plan;
+    private final TaskConfig taskConfig;
+    private final Iterator<? extends RequestContext> contexts;
+    private final int maxInFlight;
+    private final BiConsumer<RequestContext, Throwable> onComplete;
+    // 执行中的任务流数量
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 待处理的补充请求数量，不为 0 时已有线程在补充
+    private final AtomicInteger wip = new AtomicInteger();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    // 全部任务流完成的 CompletableFuture
+    private final CompletableFuture<BulkExecution> completion = new CompletableFuture<>();
+    // 任务流被拒绝后暂停取出上下文，任务流正常完成或退避结束时恢复
+    private volatile boolean paused;
+    // 下一次退避时间，毫秒，任务流正常完成后重置
+    private volatile long backoff = MIN_BACKOFF;
+    // 引擎关闭时定时器立即执行了尚未到期的恢复，不再取出剩余的上下文
+    private volatile boolean stopped;
+    // 以下字段只在补充时访问
+    // 迭代器是否已取完
+    private boolean exhausted;
+    // 迭代器抛出的异常
+    private RuntimeException iteratorError;
+    // 是否已注册退避结束的定时任务
+    private boolean resumeScheduled;
+
+    BulkExecution(TaskEngine engine, ExecutionPlan plan, TaskConfig taskConfig,
+                  Iterator<? extends RequestContext> contexts, int maxInFlight,
+                  BiConsumer<RequestContext, Throwable> onComplete) {
+        this.engine = engine;
+        this.plan = plan;
+        this.taskConfig = taskConfig;
+        this.contexts = contexts;
+        this.maxInFlight = maxInFlight;
+        this.onComplete = onComplete;
+    }
+
+    /**
+     * 开始执行，启动第一批任务流
+     */
+    void start() {
+        drain();
+    }
+
+    /**
+     * 补充任务流，同一时刻只有一个线程执行补充，其他线程的请求由它代为处理
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            fill();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void fill() {
+        if (!paused) {
+            resumeScheduled = false;
+        }
+        if (stopped && !exhausted) {
+            log.error("bulk execution stopped, timer stopped, arrangeName={}", taskConfig.getArrangeName());
+            iteratorError = HashedWheelTimer.stoppedException();
+            exhausted = true;
+        }
+        while (!exhausted && !paused && inFlight.get() < maxInFlight) {
+            RequestContext context;
+            try {
+                if (!contexts.hasNext()) {
+                    exhausted = true;
+                    break;
+                }
+                context = contexts.next();
+            } catch (RuntimeException e) {
+                log.error("bulk execution iterator error, arrangeName={}", taskConfig.getArrangeName(), e);
+                iteratorError = e;
+                exhausted = true;
+                break;
+            }
+            inFlight.incrementAndGet();
+            engine.startBulkFlow(plan, taskConfig, context).whenComplete((c, e) -> onFlowComplete(context, e));
+        }
+        // 没有执行中的任务流时不会再有完成回调，由定时器在退避后恢复
+        if (paused && !exhausted && inFlight.get() == 0 && !resumeScheduled) {
+            scheduleResume();
+        }
+        if (exhausted && inFlight.get() == 0 && !completion.isDone()) {
+            if (iteratorError == null) {
+                completion.complete(this);
+            } else {
+                completion.completeExceptionally(iteratorError);
+            }
+        }
+    }
+
+    /**
+     * 退避后恢复取出上下文，定时器线程只负责提交，补充在默认线程池中进行
+     */
+    private void scheduleResume() {
+        long delay = backoff;
+        backoff = Math.min(delay * 2, MAX_BACKOFF);
+        try {
+            engine.timer().newTimeout(this::resume, delay, TimeUnit.MILLISECONDS);
+            resumeScheduled = true;
+        } catch (IllegalStateException e) {
+            // 引擎已关闭，无法恢复，不再取出剩余的上下文
+            log.error("bulk execution stopped, timer stopped, arrangeName={}", taskConfig.getArrangeName(), e);
+            iteratorError = e;
+            exhausted = true;
+        }
+    }
+
+    private void resume() {
+        stopped = engine.timer().isStopped();
+        paused = false;
+        try {
+            engine.executors().resolve(null).execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.warn("bulk execution resume rejected by executor, arrangeName={}", taskConfig.getArrangeName());
+            drain();
+        }
+    }
+
+    /**
+     * 一个任务流完成，回调后补充下一个
+     */
+    private void onFlowComplete(RequestContext context, Throwable e) {
+        Throwable error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (error instanceof FlowRejectedException) {
+            paused = true;
+        } else {
+            backoff = MIN_BACKOFF;
+            paused = false;
+        }
+        if (error == null) {
+            succeeded.increment();
+        } else {
+            failed.increment();
+        }
+        try {
+            onComplete.accept(context, error);
+        } catch (RuntimeException callbackError) {
+            log.error("bulk execution callback error, arrangeName={}", taskConfig.getArrangeName(), callbackError);
+        }
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * 全部任务流完成后完成，迭代器抛出异常时在已启动的任务流完成后以该异常结束
+     *
+     * @return 全部任务流完成的 CompletableFuture
+     */
+    public CompletableFuture<BulkExecution> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * 获取成功的任务流数量
+     *
+     * @return 成功的任务流数量
+     */
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    /**
+     * 获取失败或被拒绝的任务流数量
+     *
+     * @return 失败的任务流数量
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * 获取执行中的任务流数量
+     *
+     * @return 执行中的任务流数量
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
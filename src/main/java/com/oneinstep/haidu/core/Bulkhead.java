@@ -0,0 +1,66 @@
+package com.oneinstep.haidu.core;
+
+import lombok.Getter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务线程池隔离舱，为注册到引擎的线程池统计排队和执行中的任务数量
+ * 统计由引擎维护，适用于任意 {@link Executor}，包括虚拟线程池
+ */
+public final class Bulkhead implements Executor {
+
+    // 线程池名称
+    @Getter
+    private final String name;
+    private final Executor delegate;
+    // 已提交尚未开始执行的任务数量
+    private final AtomicInteger queued = new AtomicInteger();
+    // 正在执行的任务数量
+    private final AtomicInteger active = new AtomicInteger();
+
+    Bulkhead(String name, Executor delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                try {
+                    command.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取排队中的任务数量
+     *
+     * @return 已提交尚未开始执行的任务数量
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * 获取正在执行的任务数量
+     *
+     * @return 正在执行的任务数量
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+}
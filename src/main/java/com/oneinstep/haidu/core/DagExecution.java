@@ -0,0 +1,749 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.admission.AdmissionController;
+import com.oneinstep.haidu.breaker.CircuitBreaker;
+import com.oneinstep.haidu.cache.ResultCache;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.CircuitBreakerOpenException;
+import com.oneinstep.haidu.exception.RateLimitedException;
+import com.oneinstep.haidu.exception.RetryStrategy;
+import com.oneinstep.haidu.flight.SingleFlight;
+import com.oneinstep.haidu.hedge.HedgePolicy;
+import com.oneinstep.haidu.limit.ConcurrencyLimiter;
+import com.oneinstep.haidu.limit.RateLimiter;
+import com.oneinstep.haidu.monitor.TaskMonitor;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.PlanNode;
+import com.oneinstep.haidu.result.Result;
+import com.oneinstep.haidu.scheduler.ReadyTask;
+import com.oneinstep.haidu.scheduler.TaskScheduler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 一次请求对执行计划的执行过程
+ * <p>
+ * 每个节点维护一个剩余依赖计数，节点完成时递减其后继节点的计数，计数归零的后继节点交给调度策略提交到该节点配置的线程池。
+ * 整个过程无锁、无递归，每个节点只有一次线程池提交的开销。
+ * <p>
+ * 节点失败时，其所有下游节点被跳过；任务流在所有节点完成或被跳过后以第一个异常结束，与原有语义一致。
+ * <p>
+ * 任务开始执行时按超时时间注册定时器，到期时节点以超时结束（没有结果，不视为失败），下游任务随即调度，
+ * 不再等待仍在执行的任务线程。失败的任务按节点的重试策略通过定时器重新提交，重试之间不占用任务线程。
+ * 从定时器线程提交的 INLINE 节点改为提交到默认线程池，任务不在定时器线程上执行。
+ * 引擎关闭后定时器不再接受任务，此时需要定时器的节点以 IllegalStateException 失败，任务流照常结束。
+ * 关闭时尚未到期的定时任务会立即执行一次：等待重试、令牌或仍在执行的节点同样以 IllegalStateException 失败，
+ * 对冲不再发起，任务流都能结束。
+ * <p>
+ * 配置了自适应并发限制的节点先获取该任务的许可再交给调度策略，许可在节点完成或超时时释放，重试期间一直持有。
+ * <p>
+ * 开启熔断的节点在获取并发许可之前查看熔断器，熔断打开时不创建任务实例也不切换线程，直接写入降级结果或以
+ * {@link CircuitBreakerOpenException} 失败。半开状态的探测在真正执行之前获取，被限流、被拒绝、准备失败、
+ * 命中缓存或合并到其他请求的节点不占用探测。每次执行的结果都计入熔断器，熔断打开后不再重试。
+ * <p>
+ * 配置了限流的节点在熔断器之后获取令牌，重试也同样获取令牌。令牌不足时按允许的等待时间通过定时器延后提交，
+ * 等待期间不占用线程；无法在等待时间内获得令牌时节点以 {@link RateLimitedException} 失败。
+ * <p>
+ * 开启对冲的节点每次执行时按该任务近期耗时的分位数注册定时器，到期仍未完成时再提交一次调用，见 {@link HedgedAttempt}。
+ * <p>
+ * 开启合并的节点在解析参数之后加入 {@link SingleFlight}，其他请求中已有参数相同的进行中调用时不再执行，等待并共享其结果。
+ * <p>
+ * {@link BatchingTask} 的实例在执行前绑定该任务在引擎上共享的 {@link BatchLoader}，并发请求的调用合并为批量调用。
+ * <p>
+ * 开启结果缓存的节点在解析参数之后、加入合并之前查询 {@link ResultCache}，命中时直接写入缓存的结果，不再执行任务；
+ * 未命中时执行成功的结果在写入上下文时一并写入缓存。
+ */
+@Slf4j
+final class DagExecution {
+
+    private final ExecutionPlan plan;
+    private final RequestContext context;
+    private final TaskEngine engine;
+    private final ExecutorRegistry executors;
+    // 超时定时器
+    private final HashedWheelTimer timer;
+    // 任务监控
+    private final TaskMonitor monitor;
+    // 就绪节点的调度策略
+    private final TaskScheduler scheduler;
+    // 准入控制
+    private final AdmissionController admission;
+    // 每个节点剩余未完成的前置节点数量
+    private final AtomicIntegerArray pending;
+    // 尚未完成的节点数量
+    private final AtomicInteger remaining;
+    // 因上游失败而被跳过的节点，在递减依赖计数之前写入，计数归零的线程一定可见
+    private final boolean[] skipped;
+    // 第一个失败的异常
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    // 任务流完成的 CompletableFuture
+    private final CompletableFuture<RequestContext> completion = new CompletableFuture<>();
+    // 任务流开始执行的时刻，纳秒
+    private final long startTime = System.nanoTime();
+
+    DagExecution(ExecutionPlan plan, RequestContext context, TaskEngine engine) {
+        this.plan = plan;
+        this.context = context;
+        this.engine = engine;
+        this.executors = engine.executors();
+        this.timer = engine.timer();
+        this.monitor = engine.getMonitor();
+        this.scheduler = engine.getScheduler();
+        this.admission = engine.getAdmissionController();
+        this.pending = new AtomicIntegerArray(plan.getDependencyCounts());
+        this.remaining = new AtomicInteger(plan.size());
+        this.skipped = new boolean[plan.size()];
+    }
+
+    /**
+     * 开始执行
+     *
+     * @return 任务流完成的 CompletableFuture
+     */
+    CompletableFuture<RequestContext> start() {
+        if (plan.size() == 0) {
+            finish();
+            return completion;
+        }
+        for (int root : plan.getRoots()) {
+            dispatch(root);
+        }
+        return completion;
+    }
+
+    /**
+     * 提交依赖已全部完成的节点
+     *
+     * @param index 节点下标
+     */
+    private void dispatch(int index) {
+        PlanNode node = plan.getNode(index);
+        // 屏障节点和被跳过的节点不需要执行，直接完成
+        if (node.isBarrier() || skipped[index]) {
+            onNodeComplete(index, null);
+            return;
+        }
+        // 只查看熔断状态，半开状态的探测在真正执行之前获取
+        CircuitBreaker breaker = engine.circuitBreaker(node);
+        if (breaker != null && !breaker.isCallPermitted()) {
+            shortCircuit(index, null);
+            return;
+        }
+        RateLimiter rateLimiter = engine.rateLimiter(node);
+        long wait = rateLimiter == null ? 0 : rateLimiter.reserve(node.getRateLimitWait());
+        if (wait == 0) {
+            acquirePermit(index);
+        } else if (wait > 0) {
+            try {
+                timer.newTimeout(() -> {
+                    if (timer.isStopped()) {
+                        // 引擎关闭时立即执行，不再等待令牌
+                        timerStopped(index, HashedWheelTimer.stoppedException());
+                    } else {
+                        acquirePermit(index);
+                    }
+                }, wait, TimeUnit.NANOSECONDS);
+            } catch (IllegalStateException e) {
+                // 引擎已关闭，定时器不再接受任务
+                timerStopped(index, e);
+            }
+        } else {
+            RateLimitedException error = new RateLimitedException(node.getTaskId());
+            monitor.onTaskError(node.getTaskId(), error);
+            onNodeComplete(index, error);
+        }
+    }
+
+    /**
+     * 引擎已关闭，尚未开始执行的节点失败
+     */
+    private void timerStopped(int index, IllegalStateException e) {
+        monitor.onTaskError(plan.getNode(index).getTaskId(), e);
+        onNodeComplete(index, e);
+    }
+
+    /**
+     * 获取并发许可后提交节点，未配置并发限制时直接提交
+     *
+     * @param index 节点下标
+     */
+    private void acquirePermit(int index) {
+        ConcurrencyLimiter limiter = engine.concurrencyLimiter(plan.getNode(index));
+        if (limiter == null) {
+            submit(index);
+        } else {
+            limiter.execute(() -> submit(index));
+        }
+    }
+
+    /**
+     * 熔断打开，写入降级结果后调度下游任务；没有降级结果时节点失败
+     *
+     * @param index      节点下标
+     * @param invocation 已开始的执行，合并到本次执行的请求得到同样的结果，尚未开始时为 null
+     */
+    private void shortCircuit(int index, TaskInvocation invocation) {
+        PlanNode node = plan.getNode(index);
+        Result<Object> fallback = node.getFallback();
+        if (fallback == null) {
+            CircuitBreakerOpenException error = new CircuitBreakerOpenException(node.getTaskId());
+            monitor.onTaskError(node.getTaskId(), error);
+            if (invocation != null) {
+                invocation.completeFlight(null, error);
+            }
+            onNodeComplete(index, error);
+            return;
+        }
+        // 降级结果在请求间共享配置，每个请求写入一份副本
+        Result<Object> result = new Result<>(fallback.getCode(), fallback.getMsg(), fallback.getData());
+        context.getTaskResultMap().putIfAbsent(node.getTaskId(), result);
+        if (invocation != null) {
+            invocation.completeFlight(result, null);
+        }
+        onNodeComplete(index, null);
+    }
+
+    /**
+     * 创建任务实例并交给调度策略
+     *
+     * @param index 节点下标
+     */
+    private void submit(int index) {
+        PlanNode node = plan.getNode(index);
+        AbstractTask<?> task;
+        try {
+            task = node.getTaskInstance();
+            bindBatchLoader(node, task);
+            context.getTaskInstanceMap().put(node.getTaskId(), task);
+            long submitTime = System.nanoTime();
+            scheduler.schedule(new ReadyTask(plan, index, context, startTime, () -> run(index, task, submitTime)),
+                    executorOf(node));
+        } catch (RejectedExecutionException e) {
+            log.error("taskId:{} rejected by executor.", node.getTaskId(), e);
+            release(index);
+            onNodeComplete(index, e);
+        } catch (RuntimeException e) {
+            release(index);
+            onNodeComplete(index, e);
+        }
+    }
+
+    /**
+     * 获取节点的线程池，在定时器线程上就绪的 INLINE 节点改用默认线程池，定时器线程只负责调度
+     * 限流等待、重试、超时后的下游任务和对冲调用都从定时器线程提交
+     */
+    private Executor executorOf(PlanNode node) {
+        return timer.inTimerThread() ? executors.resolveDetached(node.getExecutor())
+                : executors.resolve(node.getExecutor());
+    }
+
+    /**
+     * 批量任务绑定引擎共享的批量收集器
+     */
+    private void bindBatchLoader(PlanNode node, AbstractTask<?> task) {
+        if (task instanceof BatchingTask<?, ?> batchingTask) {
+            bind(node, batchingTask);
+        }
+    }
+
+    private <K, V> void bind(PlanNode node, BatchingTask<K, V> task) {
+        task.setLoader(engine.batchLoader(node, task));
+    }
+
+    /**
+     * 释放未真正执行的节点的并发许可
+     */
+    private void release(int index) {
+        ConcurrencyLimiter limiter = engine.concurrencyLimiter(plan.getNode(index));
+        if (limiter != null) {
+            limiter.release();
+        }
+    }
+
+    /**
+     * 释放节点的并发许可并记录执行结果
+     */
+    private void release(int index, long rtt, boolean dropped) {
+        ConcurrencyLimiter limiter = engine.concurrencyLimiter(plan.getNode(index));
+        if (limiter != null) {
+            limiter.release(rtt, dropped);
+        }
+    }
+
+    /**
+     * 在线程池中开始执行节点任务
+     */
+    private void run(int index, AbstractTask<?> task, long submitTime) {
+        TaskInvocation invocation = new TaskInvocation();
+        long queueTime = invocation.getStartTime() - submitTime;
+        monitor.recordTaskQueueTime(task.getTaskId(), queueTime);
+        admission.onTaskQueued(task.getTaskId(), queueTime);
+        monitor.onTaskStart(task.getTaskId());
+        try {
+            task.prepare(context);
+        } catch (RuntimeException e) {
+            monitor.onTaskError(task.getTaskId(), e);
+            release(index);
+            onNodeComplete(index, e);
+            return;
+        }
+        PlanNode node = plan.getNode(index);
+        ResultCache cache = engine.resultCache(node);
+        if (cache != null) {
+            Object cacheKey = ResultCache.key(task.getParams(context), node.getCacheKeys(), context.getRequestParam());
+            Result<?> cached = cache.get(cacheKey);
+            if (cached != null) {
+                release(index);
+                completeShared(index, task, invocation, cached, null);
+                return;
+            }
+            invocation.setCache(cache, cacheKey);
+        }
+        if (node.isCoalesce()) {
+            SingleFlight.Call call = engine.getSingleFlight().join(task.getClass(), task.getTaskId(),
+                    task.getParams(context));
+            if (!call.isLeader()) {
+                follow(index, task, invocation, call);
+                return;
+            }
+            invocation.setFlight(call);
+        }
+        // 缓存命中和合并的请求不执行任务，不占用半开状态的探测
+        CircuitBreaker breaker = engine.circuitBreaker(node);
+        if (breaker != null && !breaker.tryAcquire()) {
+            release(index);
+            shortCircuit(index, invocation);
+            return;
+        }
+        long timeout = task.getTimeout();
+        if (timeout > 0) {
+            try {
+                invocation.setDeadline(timer.newTimeout(() -> onTimeout(index, task, invocation),
+                        timeout, TimeUnit.MILLISECONDS));
+            } catch (IllegalStateException e) {
+                // 引擎已关闭，无法保证超时，不再执行任务
+                monitor.onTaskError(task.getTaskId(), e);
+                if (breaker != null) {
+                    breaker.release();
+                }
+                release(index);
+                invocation.completeFlight(null, e);
+                onNodeComplete(index, e);
+                return;
+            }
+        }
+        attempt(index, task, invocation);
+    }
+
+    /**
+     * 等待其他请求中参数相同的进行中调用，共享它的结果，不再执行任务
+     * 等待期间不占用线程和并发许可，结果在执行者完成节点的线程上写入本请求
+     */
+    private void follow(int index, AbstractTask<?> task, TaskInvocation invocation, SingleFlight.Call call) {
+        release(index);
+        call.getFuture().whenComplete((result, e) -> completeShared(index, task, invocation, result, unwrap(e)));
+    }
+
+    /**
+     * 使用其他请求的结果完成节点，结果来自合并的调用或结果缓存
+     *
+     * @param result 共享的结果，没有结果时为 null
+     * @param error  共享调用的异常，成功时为 null
+     */
+    private void completeShared(int index, AbstractTask<?> task, TaskInvocation invocation, Result<?> result,
+                                Throwable error) {
+        String taskId = task.getTaskId();
+        if (error == null && result != null) {
+            context.getTaskResultMap().putIfAbsent(taskId, result);
+            try {
+                task.afterInvoke(context);
+            } catch (RuntimeException afterInvokeError) {
+                error = afterInvokeError;
+            }
+        }
+        if (error == null) {
+            monitor.onTaskComplete(taskId, System.nanoTime() - invocation.getStartTime());
+        } else {
+            monitor.onTaskError(taskId, error);
+        }
+        onNodeComplete(index, error);
+    }
+
+    /**
+     * 执行一次任务，失败时按重试策略通过定时器调度下一次执行，等待期间不占用任务线程
+     * 异步任务在发起调用后即释放任务线程，调用完成后再继续处理
+     */
+    private void attempt(int index, AbstractTask<?> task, TaskInvocation invocation) {
+        // 等待重试期间已超时
+        if (invocation.isTimedOut()) {
+            return;
+        }
+        HedgePolicy hedgePolicy = engine.hedgePolicy(plan.getNode(index));
+        if (hedgePolicy != null) {
+            hedgedAttempt(index, task, invocation, hedgePolicy);
+            return;
+        }
+        if (task instanceof AsyncAbstractTask<?> asyncTask) {
+            CompletableFuture<Boolean> future;
+            invocation.bind();
+            try {
+                future = asyncTask.invokeOnceAsync(context, invocation);
+            } catch (Throwable e) {
+                future = CompletableFuture.failedFuture(e);
+            } finally {
+                invocation.release();
+            }
+            future.whenComplete((done, e) ->
+                    afterAttempt(index, task, invocation, Boolean.TRUE.equals(done), unwrap(e)));
+            return;
+        }
+        boolean done = false;
+        Throwable error = null;
+        invocation.bind();
+        try {
+            done = task.invokeOnce(context, invocation);
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            invocation.release();
+        }
+        afterAttempt(index, task, invocation, done, error);
+    }
+
+    /**
+     * 一次执行结束，完成节点或调度重试
+     *
+     * @param done  是否完成
+     * @param error 本次执行的异常
+     */
+    private void afterAttempt(int index, AbstractTask<?> task, TaskInvocation invocation, boolean done,
+                              Throwable error) {
+        // 已超时的节点由定时器完成
+        if (invocation.isTimedOut()) {
+            return;
+        }
+        CircuitBreaker breaker = engine.circuitBreaker(plan.getNode(index));
+        if (breaker != null) {
+            if (done) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure();
+            }
+        }
+        if (!done) {
+            int attempts = invocation.failed();
+            RetryStrategy retryStrategy = plan.getNode(index).getRetryStrategy();
+            // 熔断已打开时不再重试，尽快结束
+            boolean retryable = breaker == null || breaker.getState() != CircuitBreaker.State.OPEN;
+            if (retryable && attempts <= task.getRetries() && retryStrategy.shouldRetry(error, attempts)) {
+                retry(index, task, invocation, retryStrategy.getDelayMillis(attempts));
+                return;
+            }
+            if (error != null) {
+                error = handleError(task, error);
+            }
+        }
+        complete(index, invocation, error);
+    }
+
+    /**
+     * 执行一次任务，超过对冲延迟仍未完成时再发起一次对冲调用，第一个成功的结果生效
+     */
+    private void hedgedAttempt(int index, AbstractTask<?> task, TaskInvocation invocation, HedgePolicy hedgePolicy) {
+        HedgedAttempt hedged = new HedgedAttempt(invocation);
+        long delay = hedgePolicy.getDelayNanos();
+        if (delay >= 0) {
+            try {
+                hedged.setHedgeTimer(timer.newTimeout(() -> launchHedge(index, task, hedged, hedgePolicy),
+                        delay, TimeUnit.NANOSECONDS));
+            } catch (IllegalStateException e) {
+                // 引擎已关闭，只执行主调用
+                log.warn("taskId:{} hedge skipped, timer stopped.", task.getTaskId());
+            }
+        }
+        call(task, invocation).whenComplete((done, e) ->
+                afterHedgedCall(index, task, hedged, invocation, hedgePolicy, Boolean.TRUE.equals(done), unwrap(e)));
+    }
+
+    /**
+     * 对冲延迟到期，主调用仍未完成时提交对冲调用，在定时器线程上执行
+     */
+    private void launchHedge(int index, AbstractTask<?> task, HedgedAttempt hedged, HedgePolicy hedgePolicy) {
+        PlanNode node = plan.getNode(index);
+        // 引擎关闭时立即执行，不再发起对冲
+        if (hedged.isSettled() || timer.isStopped()) {
+            return;
+        }
+        // 对冲调用同样消耗令牌，令牌不足时放弃对冲
+        RateLimiter rateLimiter = engine.rateLimiter(node);
+        if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+            return;
+        }
+        TaskInvocation invocation = hedged.launchHedge();
+        if (invocation == null) {
+            return;
+        }
+        hedgePolicy.onHedge();
+        try {
+            scheduler.schedule(new ReadyTask(plan, index, context, startTime,
+                    () -> runHedge(index, task, hedged, invocation, hedgePolicy)), executorOf(node));
+        } catch (RuntimeException e) {
+            log.warn("taskId:{} hedge rejected by executor.", task.getTaskId(), e);
+            afterHedgedCall(index, task, hedged, invocation, hedgePolicy, false, e);
+        }
+    }
+
+    /**
+     * 执行对冲调用，有状态任务使用新的任务实例，避免与主调用共享实例状态
+     */
+    private void runHedge(int index, AbstractTask<?> task, HedgedAttempt hedged, TaskInvocation invocation,
+                          HedgePolicy hedgePolicy) {
+        AbstractTask<?> hedgeTask;
+        try {
+            hedgeTask = plan.getNode(index).getTaskInstance();
+            bindBatchLoader(plan.getNode(index), hedgeTask);
+            hedgeTask.prepare(context);
+        } catch (RuntimeException e) {
+            afterHedgedCall(index, task, hedged, invocation, hedgePolicy, false, e);
+            return;
+        }
+        call(hedgeTask, invocation).whenComplete((done, e) ->
+                afterHedgedCall(index, task, hedged, invocation, hedgePolicy, Boolean.TRUE.equals(done), unwrap(e)));
+    }
+
+    /**
+     * 发起一次调用，同步任务在当前线程执行，异步任务在发起后立即返回
+     */
+    private CompletableFuture<Boolean> call(AbstractTask<?> task, TaskInvocation invocation) {
+        invocation.bind();
+        try {
+            if (task instanceof AsyncAbstractTask<?> asyncTask) {
+                return asyncTask.invokeOnceAsync(context, invocation);
+            }
+            return CompletableFuture.completedFuture(task.invokeOnce(context, invocation));
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            invocation.release();
+        }
+    }
+
+    /**
+     * 对冲执行中的一次调用结束，得出结论的调用继续完成节点或调度重试
+     */
+    private void afterHedgedCall(int index, AbstractTask<?> task, HedgedAttempt hedged, TaskInvocation from,
+                                 HedgePolicy hedgePolicy, boolean done, Throwable error) {
+        if (!hedged.settle(from, done)) {
+            return;
+        }
+        if (done) {
+            hedgePolicy.record(System.nanoTime() - hedged.getStartTime());
+            if (hedged.isHedge(from)) {
+                hedgePolicy.onHedgeWin();
+            }
+        }
+        afterAttempt(index, task, hedged.getPrimary(), done, error);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * 调度下一次执行
+     */
+    private void retry(int index, AbstractTask<?> task, TaskInvocation invocation, long delayMillis) {
+        PlanNode node = plan.getNode(index);
+        Runnable resubmit = () -> {
+            try {
+                scheduler.schedule(new ReadyTask(plan, index, context, startTime, () -> attempt(index, task, invocation)),
+                        executorOf(node));
+            } catch (RuntimeException e) {
+                log.error("taskId:{} retry rejected by executor.", task.getTaskId(), e);
+                complete(index, invocation, e);
+            }
+        };
+        // 重试同样消耗令牌，在重试等待结束时获取
+        Runnable retry = () -> {
+            RateLimiter rateLimiter = engine.rateLimiter(node);
+            long wait = rateLimiter == null ? 0 : rateLimiter.reserve(node.getRateLimitWait());
+            if (wait == 0) {
+                resubmit.run();
+            } else if (wait > 0) {
+                try {
+                    timer.newTimeout(() -> {
+                        if (timer.isStopped()) {
+                            complete(index, invocation, HashedWheelTimer.stoppedException());
+                        } else {
+                            resubmit.run();
+                        }
+                    }, wait, TimeUnit.NANOSECONDS);
+                } catch (IllegalStateException e) {
+                    complete(index, invocation, e);
+                }
+            } else {
+                complete(index, invocation, new RateLimitedException(task.getTaskId()));
+            }
+        };
+        if (delayMillis <= 0) {
+            retry.run();
+            return;
+        }
+        try {
+            timer.newTimeout(() -> {
+                if (timer.isStopped()) {
+                    // 引擎关闭时立即执行，不再重试
+                    complete(index, invocation, HashedWheelTimer.stoppedException());
+                } else {
+                    retry.run();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 引擎已关闭，以最后一次失败结束
+            complete(index, invocation, e);
+        }
+    }
+
+    /**
+     * 重试用尽，交给任务处理异常
+     *
+     * @return onError 抛出的异常，onError 正常返回时为 null
+     */
+    private Throwable handleError(AbstractTask<?> task, Throwable error) {
+        try {
+            task.onError(context, error);
+            return null;
+        } catch (Throwable e) {
+            return e;
+        }
+    }
+
+    /**
+     * 任务线程完成节点
+     */
+    private void complete(int index, TaskInvocation invocation, Throwable error) {
+        invocation.complete();
+        // 与定时器竞争失败时节点已由定时器完成
+        if (invocation.isTimedOut()) {
+            return;
+        }
+        invocation.cancelDeadline();
+        String taskId = plan.getNode(index).getTaskId();
+        long duration = System.nanoTime() - invocation.getStartTime();
+        release(index, duration, error != null);
+        if (error == null) {
+            monitor.onTaskComplete(taskId, duration);
+            monitor.recordTaskDuration(taskId, duration);
+            scheduler.onTaskComplete(taskId, duration);
+        } else {
+            monitor.onTaskError(taskId, error);
+        }
+        invocation.completeFlight(error == null ? context.getTaskResultMap().get(taskId) : null, error);
+        onNodeComplete(index, error);
+    }
+
+    /**
+     * 节点超时，通知任务并按配置中断任务线程，随后调度下游任务
+     */
+    private void onTimeout(int index, AbstractTask<?> task, TaskInvocation invocation) {
+        if (!invocation.timeout()) {
+            return;
+        }
+        if (timer.isStopped()) {
+            // 引擎关闭时立即执行，不再等待仍在执行或等待重试的任务，节点失败
+            IllegalStateException error = HashedWheelTimer.stoppedException();
+            monitor.onTaskError(task.getTaskId(), error);
+            release(index, System.nanoTime() - invocation.getStartTime(), true);
+            invocation.completeFlight(null, error);
+            onNodeComplete(index, error);
+            return;
+        }
+        monitor.onTaskTimeout(task.getTaskId());
+        release(index, System.nanoTime() - invocation.getStartTime(), true);
+        CircuitBreaker breaker = engine.circuitBreaker(plan.getNode(index));
+        if (breaker != null) {
+            breaker.onFailure();
+        }
+        try {
+            task.onTimeout(context);
+            if (plan.getNode(index).isInterruptOnTimeout() && invocation.interrupt()) {
+                task.onCancel(context);
+            }
+        } catch (RuntimeException e) {
+            log.error("taskId:{} timeout handling error.", task.getTaskId(), e);
+        }
+        // 合并到本次执行的请求同样以没有结果结束
+        invocation.completeFlight(null, null);
+        onNodeComplete(index, null);
+    }
+
+    /**
+     * 节点完成，递减后继节点的依赖计数并提交就绪的后继节点
+     * 屏障节点和被跳过的节点在当前线程内循环处理，不产生递归
+     *
+     * @param index 节点下标
+     * @param error 节点异常，成功时为 null
+     */
+    private void onNodeComplete(int index, Throwable error) {
+        int[] inline = null;
+        int top = 0;
+        int current = index;
+        Throwable currentError = error;
+        while (true) {
+            if (currentError != null) {
+                failure.compareAndSet(null, currentError);
+            }
+            boolean skipSuccessors = currentError != null || skipped[current];
+            for (int successor : plan.getNode(current).successors()) {
+                if (skipSuccessors) {
+                    skipped[successor] = true;
+                }
+                if (pending.decrementAndGet(successor) == 0) {
+                    if (plan.getNode(successor).isBarrier() || skipped[successor]) {
+                        if (inline == null) {
+                            inline = new int[plan.size()];
+                        }
+                        inline[top++] = successor;
+                    } else {
+                        dispatch(successor);
+                    }
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            }
+            if (top == 0) {
+                return;
+            }
+            current = inline[--top];
+            currentError = null;
+        }
+    }
+
+    /**
+     * 所有节点完成
+     */
+    private void finish() {
+        Throwable error = failure.get();
+        if (error == null) {
+            // 设置引擎启动标志位
+            context.setEngineStarted(true);
+        }
+        // 清空任务实例缓存
+        context.clearTaskInstanceMap();
+        if (error == null) {
+            completion.complete(context);
+        } else {
+            completion.completeExceptionally(error);
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.oneinstep.haidu.core;
+
+/**
+ * 任务线程池模式
+ */
+public enum ExecutorMode {
+    /**
+     * 平台线程池，固定 100 个线程，队列长度 128，队列满时拒绝
+     */
+    PLATFORM,
+    /**
+     * 每个任务一个虚拟线程，适合阻塞在 I/O 上的任务，需要 Java 21 及以上
+     */
+    VIRTUAL
+}
@@ -0,0 +1,101 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.exception.HaiduException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 引擎的任务线程池注册表
+ * 任务详情中的 executor 为空时使用默认线程池，为 INLINE 时在完成前置任务的线程上直接执行
+ */
+final class ExecutorRegistry {
+
+    // 默认线程池名称
+    static final String DEFAULT = "default";
+    // 在完成前置任务的线程上直接执行
+    static final String INLINE = "INLINE";
+
+    private final Bulkhead defaultExecutor;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    ExecutorRegistry(Executor defaultExecutor) {
+        this.defaultExecutor = new Bulkhead(DEFAULT, defaultExecutor);
+        bulkheads.put(DEFAULT, this.defaultExecutor);
+    }
+
+    /**
+     * 注册线程池，同名线程池已存在时抛出异常
+     *
+     * @param name     线程池名称
+     * @param executor 线程池
+     * @return 线程池对应的隔离舱
+     */
+    Bulkhead register(String name, Executor executor) {
+        if (StringUtils.isBlank(name) || INLINE.equals(name)) {
+            throw new IllegalArgumentException("invalid executor name: " + name);
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null: " + name);
+        }
+        Bulkhead bulkhead = new Bulkhead(name, executor);
+        if (bulkheads.putIfAbsent(name, bulkhead) != null) {
+            throw new IllegalArgumentException("executor already registered: " + name);
+        }
+        return bulkhead;
+    }
+
+    /**
+     * 是否可以解析该名称
+     *
+     * @param name 线程池名称
+     * @return 名称为空、为 INLINE 或已注册时返回 true
+     */
+    boolean contains(String name) {
+        return StringUtils.isEmpty(name) || INLINE.equals(name) || bulkheads.containsKey(name);
+    }
+
+    /**
+     * 根据名称获取线程池
+     *
+     * @param name 线程池名称
+     * @return 线程池
+     */
+    Executor resolve(String name) {
+        if (StringUtils.isEmpty(name)) {
+            return defaultExecutor;
+        }
+        if (INLINE.equals(name)) {
+            return InlineExecutor.INSTANCE;
+        }
+        Bulkhead bulkhead = bulkheads.get(name);
+        if (bulkhead == null) {
+            throw new HaiduException("任务线程池未注册: " + name);
+        }
+        return bulkhead;
+    }
+
+    /**
+     * 根据名称获取不在当前线程上执行的线程池，INLINE 改用默认线程池
+     * 用于定时器线程等不应执行任务的线程
+     *
+     * @param name 线程池名称
+     * @return 线程池
+     */
+    Executor resolveDetached(String name) {
+        return INLINE.equals(name) ? defaultExecutor : resolve(name);
+    }
+
+    Bulkhead get(String name) {
+        return bulkheads.get(name);
+    }
+
+    Collection<Bulkhead> all() {
+        return Collections.unmodifiableCollection(bulkheads.values());
+    }
+
+}
@@ -0,0 +1,410 @@
+package com.oneinstep.haidu.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间轮定时器，用于任务超时、重试延迟和任务流截止时间等大量短期定时任务
+ * <p>
+ * 定时任务按到期 tick 散列到环形数组的槽位中，注册和取消都是 O(1)：注册只是放入无锁队列，
+ * 取消只是修改状态，由唯一的工作线程在每个 tick 把新任务放入槽位、移除已取消的任务并执行到期任务。
+ * 与 {@link java.util.concurrent.ScheduledThreadPoolExecutor} 的堆相比，大量定时任务同时存在时没有 O(log n) 的调整开销。
+ * <p>
+ * 定时精度为一个 tick，到期任务在工作线程中执行，必须尽快返回，耗时的处理应提交到其他线程池。
+ * <p>
+ * 停止时尚未到期且未取消的定时任务由 {@link #stop()} 返回，由调用方决定如何处理，不会被静默丢弃。
+ */
+@Slf4j
+final class HashedWheelTimer {
+
+    private static final int WORKER_INIT = 0;
+    private static final int WORKER_STARTED = 1;
+    private static final int WORKER_SHUTDOWN = 2;
+    // 每个 tick 最多从队列转移的定时任务数量，避免注册过快时工作线程一直无法执行到期任务
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    // 每个 tick 的纳秒数
+    private final long tickNanos;
+    // 时间轮槽位
+    private final Bucket[] wheel;
+    private final int mask;
+    // 新注册的定时任务，由工作线程放入槽位
+    private final Queue<Timeout> pendingQueue = new ConcurrentLinkedQueue<>();
+    // 已取消的定时任务，由工作线程从槽位中移除
+    private final Queue<Timeout> cancelledQueue = new ConcurrentLinkedQueue<>();
+    // 尚未到期且未取消的定时任务数量
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+    private final CountDownLatch startLatch = new CountDownLatch(1);
+    private final Thread workerThread;
+    // 工作线程启动时刻，所有截止时间都相对于该时刻计算
+    private volatile long startTime;
+    // 工作线程当前 tick，只由工作线程访问
+    private long tick;
+    // 工作线程退出时尚未执行的定时任务，join 之后由停止线程读取
+    private final List<Timeout> unprocessed = new ArrayList<>();
+
+    /**
+     * 创建时间轮定时器
+     *
+     * @param name          工作线程名称
+     * @param tickDuration  tick 时长
+     * @param unit          tick 时长单位
+     * @param ticksPerWheel 槽位数量，向上取整为 2 的幂
+     */
+    HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30: " + ticksPerWheel);
+        }
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.workerThread = new Thread(this::work, name);
+        this.workerThread.setDaemon(true);
+    }
+
+    /**
+     * 注册定时任务，首次注册时启动工作线程
+     *
+     * @param task  到期时执行的任务
+     * @param delay 延迟时间
+     * @param unit  延迟时间单位
+     * @return 定时任务句柄，可用于取消
+     */
+    Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        start();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startTime;
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.incrementAndGet();
+        pendingQueue.add(timeout);
+        // 与 stop 并发时，工作线程可能已经收集过队列，由注册方撤回；撤回失败说明已被收集，由 stop 返回
+        if (workerState.get() == WORKER_SHUTDOWN && pendingQueue.remove(timeout)) {
+            pendingTimeouts.decrementAndGet();
+            throw stoppedException();
+        }
+        return timeout;
+    }
+
+    /**
+     * 获取尚未到期且未取消的定时任务数量
+     *
+     * @return 定时任务数量
+     */
+    long pendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * 当前线程是否为工作线程，到期任务在工作线程上执行
+     *
+     * @return 是否为工作线程
+     */
+    boolean inTimerThread() {
+        return Thread.currentThread() == workerThread;
+    }
+
+    /**
+     * 定时器是否已停止，停止后执行的定时任务可以据此区分是到期还是被 {@link #stop()} 返回后执行
+     *
+     * @return 是否已停止
+     */
+    boolean isStopped() {
+        return workerState.get() == WORKER_SHUTDOWN;
+    }
+
+    /**
+     * 停止工作线程，之后不再接受新的定时任务
+     *
+     * @return 尚未到期且未取消的定时任务，由调用方通过 {@link Timeout#expire()} 执行或丢弃；重复停止时返回空列表
+     */
+    List<Timeout> stop() {
+        if (Thread.currentThread() == workerThread) {
+            throw new IllegalStateException("HashedWheelTimer.stop() cannot be called from a timer task");
+        }
+        int state = workerState.getAndSet(WORKER_SHUTDOWN);
+        if (state != WORKER_STARTED) {
+            return new ArrayList<>();
+        }
+        boolean interrupted = false;
+        workerThread.interrupt();
+        while (workerThread.isAlive()) {
+            try {
+                workerThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new ArrayList<>(unprocessed);
+    }
+
+    static IllegalStateException stoppedException() {
+        return new IllegalStateException("HashedWheelTimer has been stopped");
+    }
+
+    private void start() {
+        switch (workerState.get()) {
+            case WORKER_INIT:
+                if (workerState.compareAndSet(WORKER_INIT, WORKER_STARTED)) {
+                    workerThread.start();
+                }
+                break;
+            case WORKER_STARTED:
+                break;
+            default:
+                throw stoppedException();
+        }
+        // 等待工作线程初始化启动时刻
+        while (startTime == 0) {
+            try {
+                startLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void work() {
+        long now = System.nanoTime();
+        // 0 用于表示尚未启动
+        startTime = now == 0 ? 1 : now;
+        startLatch.countDown();
+
+        while (workerState.get() == WORKER_STARTED) {
+            long deadline = waitForNextTick();
+            if (deadline > 0) {
+                removeCancelled();
+                transferPending();
+                wheel[(int) (tick & mask)].expire(deadline);
+                tick++;
+            }
+        }
+        // 收集尚未执行的定时任务，由 stop 返回
+        for (Bucket bucket : wheel) {
+            bucket.clear(unprocessed);
+        }
+        Timeout timeout;
+        while ((timeout = pendingQueue.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                unprocessed.add(timeout);
+            }
+        }
+    }
+
+    /**
+     * 等待下一个 tick
+     *
+     * @return 当前时刻（相对启动时刻），定时器停止时返回负数
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long current = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - current + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) {
+                return current;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (workerState.get() == WORKER_SHUTDOWN) {
+                    return Long.MIN_VALUE;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout timeout = pendingQueue.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.ST_CANCELLED) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // 已经过期的任务放入当前槽位，本 tick 内执行
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledQueue.poll()) != null) {
+            // 尚未放入槽位的任务在转移时跳过
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    static final class Timeout {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        // 到期时刻，相对定时器启动时刻的纳秒数
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // 以下字段只由工作线程访问
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消定时任务
+         *
+         * @return 是否取消成功，已到期或已取消时返回 false
+         */
+        boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            timer.pendingTimeouts.decrementAndGet();
+            timer.cancelledQueue.add(this);
+            return true;
+        }
+
+        boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        /**
+         * 执行定时任务，已取消或已执行时忽略，任务抛出的异常只记录日志
+         */
+        void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            timer.pendingTimeouts.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.warn("timer task threw an exception.", e);
+            }
+        }
+    }
+
+    /**
+     * 时间轮槽位，双向链表，只由工作线程访问
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * 执行到期的定时任务，未到期的任务轮数减一
+         *
+         * @param deadline 当前时刻
+         */
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    } else {
+                        throw new IllegalStateException(String.format(
+                                "timeout.deadline (%d) > deadline (%d)", timeout.deadline, deadline));
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        /**
+         * 清空槽位，未取消的定时任务加入 unprocessed
+         */
+        void clear(List<Timeout> unprocessed) {
+            Timeout timeout;
+            while ((timeout = head) != null) {
+                remove(timeout);
+                if (!timeout.isCancelled() && !timeout.isExpired()) {
+                    unprocessed.add(timeout);
+                }
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+}
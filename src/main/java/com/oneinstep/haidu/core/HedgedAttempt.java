@@ -0,0 +1,105 @@
+package com.oneinstep.haidu.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次对冲执行的状态
+ * <p>
+ * 主调用先发起，超过对冲延迟仍未完成时再发起一次对冲调用。两次调用共享节点的完成状态，先成功的结果写入上下文，
+ * 随后中断或取消另一次调用；两次调用都失败时以后失败的一次结束本次执行，交给重试策略处理。
+ */
+final class HedgedAttempt {
+
+    // 主调用的执行状态
+    private final TaskInvocation primary;
+    // 对冲调用的执行状态，未发起时为 null
+    private volatile TaskInvocation hedge;
+    // 尚未结束的调用数量，归零后不再发起对冲
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+    // 本次执行是否已有结论
+    private final AtomicBoolean settled = new AtomicBoolean();
+    // 开始执行的时刻，纳秒
+    private final long startTime = System.nanoTime();
+    // 发起对冲的定时任务
+    private volatile HashedWheelTimer.Timeout hedgeTimer;
+
+    HedgedAttempt(TaskInvocation primary) {
+        this.primary = primary;
+    }
+
+    TaskInvocation getPrimary() {
+        return primary;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    void setHedgeTimer(HashedWheelTimer.Timeout hedgeTimer) {
+        this.hedgeTimer = hedgeTimer;
+    }
+
+    boolean isSettled() {
+        return settled.get();
+    }
+
+    /**
+     * 准备发起对冲调用
+     *
+     * @return 对冲调用的执行状态，本次执行已有结论时返回 null
+     */
+    TaskInvocation launchHedge() {
+        if (settled.get() || outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+            return null;
+        }
+        TaskInvocation invocation = primary.hedge();
+        this.hedge = invocation;
+        // 与 settle 中先写 settled 再读 hedge 的顺序相对，两者至少有一方能看到对方
+        return settled.get() ? null : invocation;
+    }
+
+    /**
+     * 一次调用结束
+     *
+     * @param from 结束的调用
+     * @param done 是否成功
+     * @return 是否由本次调用得出结论，只有返回 true 的调用继续处理节点
+     */
+    boolean settle(TaskInvocation from, boolean done) {
+        if (done) {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            cancelHedgeTimer();
+            TaskInvocation loser = from == primary ? hedge : primary;
+            if (loser != null) {
+                loser.interruptRunner();
+            }
+            return true;
+        }
+        if (outstanding.decrementAndGet() == 0 && settled.compareAndSet(false, true)) {
+            cancelHedgeTimer();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 是否为对冲调用
+     *
+     * @param invocation 调用的执行状态
+     * @return 是否为对冲调用
+     */
+    boolean isHedge(TaskInvocation invocation) {
+        return invocation != primary;
+    }
+
+    private void cancelHedgeTimer() {
+        HashedWheelTimer.Timeout timeout = hedgeTimer;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+}
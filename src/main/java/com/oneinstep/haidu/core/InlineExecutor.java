@@ -0,0 +1,51 @@
+package com.oneinstep.haidu.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * 在提交线程上直接执行任务，用于耗时极短、不值得切换线程的任务节点
+ * <p>
+ * 执行过程中再次提交的任务放入当前线程的队列，由最外层调用依次执行，
+ * 连续的 INLINE 节点不会产生递归调用。
+ * <p>
+ * 任务节点配置为 INLINE 时引擎把该实例传给调度策略，调度策略应直接执行而不放入跨请求共享的队列，
+ * 否则节点可能被其他请求的线程取走执行。
+ */
+@Slf4j
+public final class InlineExecutor implements Executor {
+
+    public static final InlineExecutor INSTANCE = new InlineExecutor();
+
+    private static final ThreadLocal<ArrayDeque<Runnable>> QUEUE = new ThreadLocal<>();
+
+    private InlineExecutor() {
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ArrayDeque<Runnable> queue = QUEUE.get();
+        if (queue != null) {
+            queue.add(command);
+            return;
+        }
+        queue = new ArrayDeque<>();
+        QUEUE.set(queue);
+        try {
+            Runnable next = command;
+            while (next != null) {
+                try {
+                    next.run();
+                } catch (RuntimeException e) {
+                    log.error("inline task error.", e);
+                }
+                next = queue.poll();
+            }
+        } finally {
+            QUEUE.remove();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.oneinstep.haidu.core;
+
+import com.google.common.cache.CacheBuilder;
+import com.oneinstep.haidu.plan.PlanNode;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 按执行计划节点保存在所有请求间共享的组件，例如并发限制、熔断器和结果缓存
+ * <p>
+ * 以节点对象的身份（而非任务ID）作为 key：任务ID只在一个任务配置内唯一，不同配置中的同名任务各自拥有独立的组件；
+ * 配置版本变化后执行计划重新编译，新节点按新的配置创建组件，旧节点随旧计划被回收后对应的组件也会被回收。
+ *
+ * @param <V> 组件类型
+ */
+final class NodeRegistry<V> {
+
+    // weakKeys 使用 == 比较 key
+    private final ConcurrentMap<PlanNode, V> values = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<PlanNode, V>build()
+            .asMap();
+
+    /**
+     * 获取节点的组件
+     *
+     * @param node 节点，可以为 null
+     * @return 组件，节点为 null 或尚未创建时返回 null
+     */
+    V get(PlanNode node) {
+        return node == null ? null : values.get(node);
+    }
+
+    /**
+     * 获取节点的组件，不存在时创建
+     * 组件创建后只读，先不加锁读取，只在首次使用时进入 computeIfAbsent
+     *
+     * @param node    节点
+     * @param factory 创建组件
+     * @return 组件
+     */
+    V computeIfAbsent(PlanNode node, Function<PlanNode, V> factory) {
+        V value = values.get(node);
+        return value != null ? value : values.computeIfAbsent(node, factory);
+    }
+
+}
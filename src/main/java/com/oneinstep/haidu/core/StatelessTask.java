@@ -0,0 +1,21 @@
+package com.oneinstep.haidu.core;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记无状态任务
+ * <p>
+ * 被标记的任务类不持有请求级状态，引擎在每个执行计划中只为每个任务ID创建一个实例，并在所有请求间共享。
+ * 无状态任务需要满足：
+ * <ul>
+ *     <li>不在实例字段中保存请求数据，任务必须是线程安全的</li>
+ *     <li>通过 {@link AbstractTask#getParams(com.oneinstep.haidu.context.RequestContext)} 读取参数，
+ *     CONTEXT 类型的参数会按请求解析并保存在请求上下文中</li>
+ * </ul>
+ */
+@Documented
+@Inherited
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatelessTask {
+}
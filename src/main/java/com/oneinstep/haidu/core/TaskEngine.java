@@ -1,44 +1,103 @@
 package com.oneinstep.haidu.core;
 
 import com.alibaba.fastjson2.JSON;
+import com.oneinstep.haidu.admission.AdmissionController;
+import com.oneinstep.haidu.admission.AdmissionDecision;
+import com.oneinstep.haidu.breaker.CircuitBreaker;
+import com.oneinstep.haidu.cache.ResultCache;
 import com.oneinstep.haidu.config.TaskConfig;
 import com.oneinstep.haidu.config.TaskDetail;
 import com.oneinstep.haidu.config.TaskParam;
 import com.oneinstep.haidu.context.RequestContext;
 import com.oneinstep.haidu.exception.IllegalTaskConfigException;
-import com.oneinstep.haidu.parser.ExpressionParser;
-import com.oneinstep.haidu.parser.TaskGraph;
+import com.oneinstep.haidu.flight.SingleFlight;
+import com.oneinstep.haidu.hedge.HedgePolicy;
+import com.oneinstep.haidu.limit.ConcurrencyLimiter;
+import com.oneinstep.haidu.limit.RateLimiter;
+import com.oneinstep.haidu.monitor.TaskMonitor;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCache;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.plan.PlanNode;
+import com.oneinstep.haidu.scheduler.CriticalPathTaskScheduler;
+import com.oneinstep.haidu.scheduler.FifoTaskScheduler;
+import com.oneinstep.haidu.scheduler.TaskScheduler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 
 /**
  * 任务引擎类，用于管理和执行任务
+ * <p>
+ * 每个引擎实例拥有独立的线程池、定时器、执行计划缓存和监控，通过 {@link #builder()} 可以创建多个实例，
+ * 例如按租户或按任务流类型隔离。{@link #getInstance(ExecutorService)} 返回进程内共享的默认实例。
  */
 @Slf4j
 public class TaskEngine {
     // 单例实例，使用 volatile 确保可见性和防止指令重排序
     private static volatile TaskEngine INSTANCE;
+    // 引擎名称
+    private final String name;
     // 线程池，用于并发执行任务
     private final ExecutorService taskThreadPool;
+    // 线程池是否由引擎创建，由引擎创建的线程池在关闭引擎时一并关闭
+    private final boolean ownsTaskThreadPool;
+    // 任务线程池注册表
+    private final ExecutorRegistry executors;
+    // 定时器，用于任务超时
+    private final HashedWheelTimer timer;
+    // 任务监控
+    private final TaskMonitor monitor;
+    // 就绪节点的调度策略
+    private final TaskScheduler scheduler;
+    // 准入控制
+    private final AdmissionController admissionController;
+    // 执行计划缓存
+    private final ExecutionPlanCache planCache = new ExecutionPlanCache();
+    // 节点 -> 自适应并发限制，所有请求共享
+    private final NodeRegistry<ConcurrencyLimiter> limiters = new NodeRegistry<>();
+    // 每个节点的限流，所有请求共享
+    private final NodeRegistry<RateLimiter> rateLimiters = new NodeRegistry<>();
+    // 合并参数相同的并发调用
+    private final SingleFlight singleFlight = new SingleFlight();
+    // 每个节点的对冲策略，所有请求共享
+    private final NodeRegistry<HedgePolicy> hedgePolicies = new NodeRegistry<>();
+    // 每个批量任务节点的批量收集器，所有请求共享
+    private final NodeRegistry<BatchLoader<?, ?>> batchLoaders = new NodeRegistry<>();
+    // 每个节点的结果缓存，所有请求共享
+    private final NodeRegistry<ResultCache> resultCaches = new NodeRegistry<>();
+    // 每个节点的熔断器，所有请求共享
+    private final NodeRegistry<CircuitBreaker> breakers = new NodeRegistry<>();
 
-    // 私有构造函数，允许传入自定义线程池
-    private TaskEngine(ExecutorService taskThreadPool) {
-        this.taskThreadPool = taskThreadPool != null ? taskThreadPool
-                : new ThreadPoolExecutor(
-                100,
-                100,
-                60,
-                TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(128),
-                new ThreadPoolExecutor.AbortPolicy());
+    private TaskEngine(Builder builder) {
+        this.name = builder.name;
+        this.ownsTaskThreadPool = builder.taskThreadPool == null;
+        this.taskThreadPool = builder.taskThreadPool != null ? builder.taskThreadPool
+                : TaskExecutors.create(builder.executorMode);
+        this.executors = new ExecutorRegistry(this.taskThreadPool);
+        builder.executors.forEach(executors::register);
+        this.timer = new HashedWheelTimer(name + "-timer", 10, TimeUnit.MILLISECONDS, 512);
+        this.monitor = builder.monitor;
+        this.scheduler = builder.scheduler;
+        this.admissionController = builder.admissionController;
     }
 
     /**
-     * 获取 TaskEngine 实例
+     * 创建引擎构建器
+     *
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 获取共享的 TaskEngine 实例
+     * 只有第一次调用时传入的线程池生效，需要不同线程池时使用 {@link #builder()} 创建独立实例
      *
      * @param taskThreadPool 自定义线程池
      * @return TaskEngine 实例
@@ -47,7 +106,7 @@ public class TaskEngine {
         if (INSTANCE == null) {
             synchronized (TaskEngine.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = new TaskEngine(taskThreadPool);
+                    INSTANCE = builder().executor(taskThreadPool).build();
                 }
             }
         }
@@ -55,82 +114,503 @@ public class TaskEngine {
     }
 
     /**
-     * 启动任务引擎
+     * 获取共享的 TaskEngine 实例，使用指定模式的线程池
+     * 任务大多阻塞在 I/O 上时可以使用 {@link ExecutorMode#VIRTUAL}，避免平台线程池排队和拒绝
+     *
+     * @param executorMode 线程池模式
+     * @return TaskEngine 实例
+     * @throws UnsupportedOperationException 使用虚拟线程但运行时低于 Java 21
+     */
+    public static TaskEngine getInstanceWithExecutorMode(final ExecutorMode executorMode) {
+        if (INSTANCE == null) {
+            synchronized (TaskEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = builder().executorMode(executorMode).build();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * 启动任务引擎，阻塞直到所有任务完成
      *
      * @param context 请求上下文，包含任务配置
+     * @throws com.oneinstep.haidu.exception.FlowRejectedException 调度器过载，任务流未执行
      */
     public void startEngine(RequestContext context) {
+        ExecutionPlan plan = prepare(context);
+        execute(plan, context).join();
+    }
+
+    /**
+     * 异步启动任务引擎，不阻塞调用线程
+     * 返回的 CompletableFuture 在所有任务完成后以请求上下文完成，任务失败、配置非法或任务流被拒绝时异常完成
+     *
+     * @param context 请求上下文，包含任务配置
+     * @return 任务流完成的 CompletableFuture
+     */
+    public CompletableFuture<RequestContext> startEngineAsync(RequestContext context) {
+        ExecutionPlan plan;
         try {
-            // 检查是否已经启动过引擎
-            if (context.isEngineStarted()) {
-                throw new IllegalStateException("任务引擎已经启动!");
-            }
+            plan = prepare(context);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return execute(plan, context);
+    }
 
-            // 获取任务配置
-            TaskConfig taskConfig = context.getTaskConfig();
-            if (taskConfig == null) {
-                log.warn("the task config is null.");
-                throw new IllegalTaskConfigException("任务配置为空");
-            }
-            // 获取任务编排规则
-            List<List<String>> arrange = taskConfig.getArrangeRule();
-            if (CollectionUtils.isEmpty(arrange)) {
-                log.warn("the task arrange is empty...");
-                throw new IllegalTaskConfigException("任务编排为空");
-            }
+    /**
+     * 批量执行同一任务配置的多个请求，执行计划只获取一次，同时执行的任务流不超过 maxInFlight
+     * 每个任务流完成时在完成它的线程上回调，回调异常只记录日志；返回的批量执行在全部任务流完成后完成
+     *
+     * @param taskConfig  任务配置，覆盖每个请求上下文中的任务配置
+     * @param contexts    请求上下文，按需取出，只在补充任务流时访问
+     * @param maxInFlight 同时执行的任务流数量上限
+     * @param onComplete  任务流完成的回调，参数为请求上下文和任务流的异常，成功时异常为 null
+     * @return 批量执行，可查看进度和等待完成
+     * @throws IllegalTaskConfigException 任务配置为空或非法
+     */
+    public BulkExecution startEngineBulk(TaskConfig taskConfig, Iterator<? extends RequestContext> contexts,
+                                         int maxInFlight, BiConsumer<RequestContext, Throwable> onComplete) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        Objects.requireNonNull(contexts, "contexts");
+        Objects.requireNonNull(onComplete, "onComplete");
+        BulkExecution bulk = new BulkExecution(this, getExecutionPlan(taskConfig), taskConfig, contexts, maxInFlight,
+                onComplete);
+        bulk.start();
+        return bulk;
+    }
 
-            // 处理任务参数
-            handleTaskParams(taskConfig.getTaskDetailsMap(), context);
-
-            // 第一组是前置任务,中间N个组是并行任务,最后一个组是后置任务
-            // 前置任务
-            List<String> preTasks = arrange.get(0);
-            arrangeToOneFuture(ExpressionParser.parseExpressions(preTasks, context.getTaskInstanceMap(),
-                    taskConfig.getTaskDetailsMap()), context).join();
-
-            // 并行任务
-            if (arrange.size() > 2) {
-                List<CompletableFuture<Void>> parallelFutures = new ArrayList<>();
-                for (int i = 1; i < arrange.size() - 1; i++) {
-                    List<String> parallelTasks = arrange.get(i);
-                    CompletableFuture<Void> future = arrangeToOneFuture(ExpressionParser.parseExpressions(parallelTasks,
-                            context.getTaskInstanceMap(), taskConfig.getTaskDetailsMap()), context);
-                    parallelFutures.add(future);
-                }
-                // 等待所有并行任务完成
-                CompletableFuture.allOf(parallelFutures.toArray(new CompletableFuture[0])).join();
-            } else {
-                log.warn("没有并行任务组...");
-            }
+    /**
+     * 批量执行同一任务配置的多个请求
+     *
+     * @see #startEngineBulk(TaskConfig, Iterator, int, BiConsumer)
+     */
+    public BulkExecution startEngineBulk(TaskConfig taskConfig, Iterable<? extends RequestContext> contexts,
+                                         int maxInFlight, BiConsumer<RequestContext, Throwable> onComplete) {
+        return startEngineBulk(taskConfig, contexts.iterator(), maxInFlight, onComplete);
+    }
 
-            // 后置任务
-            if (arrange.size() >= 2) {
-                // 后置任务
-                List<String> postTasks = arrange.get(arrange.size() - 1);
-                arrangeToOneFuture(ExpressionParser.parseExpressions(postTasks, context.getTaskInstanceMap(),
-                        taskConfig.getTaskDetailsMap()), context).join();
-            } else {
-                log.warn("没有后置任务组...");
-            }
+    /**
+     * 使用批量执行已获取的执行计划启动一个任务流，不再查找执行计划
+     *
+     * @param plan       执行计划
+     * @param taskConfig 任务配置
+     * @param context    请求上下文
+     * @return 任务流完成的 CompletableFuture
+     */
+    CompletableFuture<RequestContext> startBulkFlow(ExecutionPlan plan, TaskConfig taskConfig, RequestContext context) {
+        try {
+            checkNotStarted(context);
+            context.setTaskConfig(taskConfig);
+            admit(plan, context);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return execute(plan, context);
+    }
+
+    /**
+     * 检查请求上下文并获取执行计划
+     *
+     * @param context 请求上下文
+     * @return 执行计划
+     */
+    private ExecutionPlan prepare(RequestContext context) {
+        checkNotStarted(context);
+
+        // 获取任务配置
+        TaskConfig taskConfig = context.getTaskConfig();
+        if (taskConfig == null) {
+            log.warn("the task config is null.");
+            throw new IllegalTaskConfigException("任务配置为空");
+        }
+        // 获取执行计划，首次执行时编译并缓存
+        ExecutionPlan plan = getExecutionPlan(taskConfig);
+        admit(plan, context);
+        return plan;
+    }
+
+    /**
+     * 检查是否已经启动过引擎
+     *
+     * @param context 请求上下文
+     */
+    private static void checkNotStarted(RequestContext context) {
+        if (context.isEngineStarted()) {
+            throw new IllegalStateException("任务引擎已经启动!");
+        }
+    }
+
+    /**
+     * 准入检查，调度器过载或预计无法在截止时间前完成时，在任何任务执行前拒绝整个任务流
+     *
+     * @param plan    执行计划
+     * @param context 请求上下文
+     */
+    private void admit(ExecutionPlan plan, RequestContext context) {
+        scheduler.admit(context, executorsOf(plan));
+        if (admissionController.admit(plan, context) == AdmissionDecision.DEGRADE) {
+            context.setDegraded(true);
+        }
+    }
+
+    /**
+     * 获取执行计划的节点使用的线程池
+     *
+     * @param plan 执行计划
+     * @return 线程池
+     */
+    private List<Executor> executorsOf(ExecutionPlan plan) {
+        List<Executor> result = new ArrayList<>(plan.getExecutors().size());
+        for (String executor : plan.getExecutors()) {
+            result.add(executors.resolve(executor));
+        }
+        return result;
+    }
+
+    /**
+     * 按执行计划执行整个任务流，节点的依赖全部完成后才提交到线程池，不阻塞任何线程
+     *
+     * @param plan    执行计划
+     * @param context 请求上下文
+     * @return 任务流完成的 CompletableFuture
+     */
+    private CompletableFuture<RequestContext> execute(ExecutionPlan plan, RequestContext context) {
+        if (admissionController == AdmissionController.NONE) {
+            return new DagExecution(plan, context, this).start();
+        }
+        long start = System.nanoTime();
+        return new DagExecution(plan, context, this).start().whenComplete((c, e) ->
+                admissionController.onFlowComplete(plan, context, System.nanoTime() - start, e));
+    }
+
+    /**
+     * 注册任务线程池，任务详情通过 executor 指定名称使用，用于隔离不同类型的任务
+     * 名称 default 为默认线程池，INLINE 表示在完成前置任务的线程上直接执行，二者都不能注册
+     *
+     * @param name     线程池名称
+     * @param executor 线程池
+     * @return 线程池对应的隔离舱，可查看排队和执行中的任务数量
+     */
+    public Bulkhead registerExecutor(String name, Executor executor) {
+        return executors.register(name, executor);
+    }
+
+    /**
+     * 获取线程池对应的隔离舱
+     *
+     * @param name 线程池名称，默认线程池为 default
+     * @return 隔离舱，未注册时返回 null
+     */
+    public Bulkhead getBulkhead(String name) {
+        return executors.get(name);
+    }
+
+    /**
+     * 获取所有线程池对应的隔离舱，包含默认线程池
+     *
+     * @return 隔离舱
+     */
+    public Collection<Bulkhead> getBulkheads() {
+        return executors.all();
+    }
+
+    /**
+     * 获取引擎名称
+     *
+     * @return 引擎名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取任务监控
+     *
+     * @return 任务监控
+     */
+    public TaskMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * 获取就绪节点的调度策略
+     *
+     * @return 调度策略
+     */
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 获取准入控制
+     *
+     * @return 准入控制
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * 关闭引擎，停止定时器并关闭由引擎创建的线程池
+     * 定时器中尚未到期的任务在当前线程立即执行一次：设置了超时、等待重试或等待令牌的节点以 IllegalStateException 失败，
+     * 收集中的批量调用立即发出，批量执行不再取出剩余的上下文，等待中的任务流都能结束。
+     * 通过构建器传入的线程池由调用方负责关闭
+     */
+    public void shutdown() {
+        for (HashedWheelTimer.Timeout timeout : timer.stop()) {
+            timeout.expire();
+        }
+        if (ownsTaskThreadPool) {
+            taskThreadPool.shutdown();
+        }
+    }
+
+    ExecutorRegistry executors() {
+        return executors;
+    }
+
+    HashedWheelTimer timer() {
+        return timer;
+    }
+
+    /**
+     * 获取任务的自适应并发限制，可用于观察并发上限的变化
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 并发限制，任务未配置或尚未执行时返回 null
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter(TaskConfig taskConfig, String taskId) {
+        return limiters.get(node(taskConfig, taskId));
+    }
+
+    /**
+     * 获取节点的自适应并发限制，首次使用时创建，之后同一执行计划的所有请求共享
+     * 配置版本变化后按新的配置重新创建，从初始上限开始收敛
+     *
+     * @param node 节点
+     * @return 并发限制，节点未配置时返回 null
+     */
+    ConcurrencyLimiter concurrencyLimiter(PlanNode node) {
+        if (node.getConcurrencyLimit() == null) {
+            return null;
+        }
+        return limiters.computeIfAbsent(node, n ->
+                ConcurrencyLimiter.create(n.getTaskId(), n.getConcurrencyLimit(), n.getMaxConcurrency()));
+    }
+
+    /**
+     * 获取任务的限流
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 限流，任务未配置或尚未执行时返回 null
+     */
+    public RateLimiter getRateLimiter(TaskConfig taskConfig, String taskId) {
+        return rateLimiters.get(node(taskConfig, taskId));
+    }
+
+    /**
+     * 获取节点的限流，首次使用时创建，之后同一执行计划的所有请求共享
+     *
+     * @param node 节点
+     * @return 限流，节点未配置时返回 null
+     */
+    RateLimiter rateLimiter(PlanNode node) {
+        if (node.getRateLimit() <= 0) {
+            return null;
+        }
+        return rateLimiters.computeIfAbsent(node, n ->
+                new RateLimiter(n.getTaskId(), n.getRateLimit(), n.getRateLimitBurst()));
+    }
+
+    /**
+     * 获取合并并发调用的状态，可用于观察被合并的调用数量
+     *
+     * @return 合并并发调用的状态
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * 获取任务的对冲策略，可用于观察对冲延迟和对冲次数
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 对冲策略，任务未开启对冲或尚未执行时返回 null
+     */
+    public HedgePolicy getHedgePolicy(TaskConfig taskConfig, String taskId) {
+        return hedgePolicies.get(node(taskConfig, taskId));
+    }
 
-            // 设置引擎启动标志位
-            context.setEngineStarted(true);
+    /**
+     * 获取节点的对冲策略，首次使用时创建，之后同一执行计划的所有请求共享
+     *
+     * @param node 节点
+     * @return 对冲策略，节点未开启对冲时返回 null
+     */
+    HedgePolicy hedgePolicy(PlanNode node) {
+        if (!node.isHedge()) {
+            return null;
+        }
+        return hedgePolicies.computeIfAbsent(node, n -> new HedgePolicy(n.getTaskId(), n.getHedgePercentile()));
+    }
 
-        } finally {
-            // 清空任务实例缓存
-            context.clearTaskInstanceMap();
+    /**
+     * 获取批量任务的批量收集器，可用于观察平均每批合并的调用数量
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 批量收集器，任务不是批量任务或尚未执行时返回 null
+     */
+    public BatchLoader<?, ?> getBatchLoader(TaskConfig taskConfig, String taskId) {
+        return batchLoaders.get(node(taskConfig, taskId));
+    }
+
+    /**
+     * 获取批量任务节点的批量收集器，首次使用时以该任务实例的批量调用创建，之后同一执行计划的所有请求共享
+     * 节点的任务实例都来自同一个任务类，共享的批量调用与各请求的任务实例一致
+     *
+     * @param node 节点
+     * @param task 批量任务实例
+     * @return 批量收集器
+     */
+    @SuppressWarnings("unchecked")
+    <K, V> BatchLoader<K, V> batchLoader(PlanNode node, BatchingTask<K, V> task) {
+        return (BatchLoader<K, V>) batchLoaders.computeIfAbsent(node, n ->
+                new BatchLoader<>(n.getTaskId(), task::loadBatch, n.getMaxBatchSize(), n.getBatchWindow(),
+                        executors.resolveDetached(n.getExecutor()), timer));
+    }
+
+    /**
+     * 获取任务的结果缓存，可用于观察命中率和淘汰次数
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 结果缓存，任务未开启缓存或尚未执行时返回 null
+     */
+    public ResultCache getResultCache(TaskConfig taskConfig, String taskId) {
+        return resultCaches.get(node(taskConfig, taskId));
+    }
+
+    /**
+     * 获取节点的结果缓存，首次使用时创建，之后同一执行计划的所有请求共享
+     * 不同配置中的同名任务不共享结果，配置版本变化后重新创建，不会读到按旧配置执行的结果
+     *
+     * @param node 节点
+     * @return 结果缓存，节点未开启缓存时返回 null
+     */
+    ResultCache resultCache(PlanNode node) {
+        if (node.getCacheTtl() <= 0) {
+            return null;
         }
+        return resultCaches.computeIfAbsent(node, n ->
+                new ResultCache(n.getTaskId(), n.getCacheMaxSize(), n.getCacheTtl()));
+    }
+
+    /**
+     * 获取任务的熔断器，可用于观察熔断状态
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 熔断器，任务未开启熔断或尚未执行时返回 null
+     */
+    public CircuitBreaker getCircuitBreaker(TaskConfig taskConfig, String taskId) {
+        return breakers.get(node(taskConfig, taskId));
+    }
+
+    /**
+     * 获取节点的熔断器，首次使用时创建，之后同一执行计划的所有请求共享
+     *
+     * @param node 节点
+     * @return 熔断器，节点未开启熔断时返回 null
+     */
+    CircuitBreaker circuitBreaker(PlanNode node) {
+        if (!node.isCircuitBreaker()) {
+            return null;
+        }
+        return breakers.computeIfAbsent(node, n -> new CircuitBreaker(n.getTaskId(),
+                n.getFailureRateThreshold(), n.getMinimumCalls(), n.getBreakDuration()));
+    }
+
+    /**
+     * 获取任务配置中的节点，用于查询按节点共享的组件
+     *
+     * @param taskConfig 任务配置
+     * @param taskId     任务ID
+     * @return 节点，不存在时返回 null
+     */
+    private PlanNode node(TaskConfig taskConfig, String taskId) {
+        return getExecutionPlan(taskConfig).getNode(taskId);
+    }
+
+    /**
+     * 获取任务配置对应的执行计划，不存在时编译并缓存
+     * 配置修改后需要变更 {@link TaskConfig#getVersion()} 或调用 {@link #invalidatePlan(TaskConfig)}
+     *
+     * @param taskConfig 任务配置
+     * @return 执行计划
+     */
+    public ExecutionPlan getExecutionPlan(TaskConfig taskConfig) {
+        if (taskConfig == null) {
+            throw new IllegalTaskConfigException("任务配置为空");
+        }
+        return planCache.get(taskConfig, this::compilePlan);
+    }
+
+    /**
+     * 使任务配置对应的执行计划失效，下次执行时重新编译
+     *
+     * @param taskConfig 任务配置
+     */
+    public void invalidatePlan(TaskConfig taskConfig) {
+        planCache.invalidate(taskConfig);
+    }
+
+    /**
+     * 编译执行计划，任务参数在编译时处理一次
+     *
+     * @param taskConfig 任务配置
+     * @return 执行计划
+     */
+    private ExecutionPlan compilePlan(TaskConfig taskConfig) {
+        if (taskConfig.getTaskDetailsMap() != null) {
+            handleTaskParams(taskConfig.getTaskDetailsMap());
+            checkExecutors(taskConfig.getTaskDetailsMap());
+        }
+        return ExecutionPlanCompiler.compile(taskConfig);
+    }
+
+    /**
+     * 检查任务使用的线程池是否已注册
+     *
+     * @param taskDetailsMap 任务详情映射
+     */
+    private void checkExecutors(Map<String, TaskDetail> taskDetailsMap) {
+        taskDetailsMap.values().forEach(detail -> {
+            String executor = StringUtils.trimToNull(detail.getExecutor());
+            if (!executors.contains(executor)) {
+                log.error("executor is not registered, taskId:{}, executor:{}", detail.getTaskId(), executor);
+                throw new IllegalTaskConfigException("任务线程池未注册: " + executor);
+            }
+        });
     }
 
     /**
      * 处理任务参数
      *
      * @param taskDetailsMap 任务详情映射
-     * @param context        请求上下文
      */
-    private void handleTaskParams(Map<String, TaskDetail> taskDetailsMap, RequestContext context) {
+    private void handleTaskParams(Map<String, TaskDetail> taskDetailsMap) {
         taskDetailsMap.values().forEach(detail -> {
-            Map<String, Object> params = handleTaskParams(detail.getTaskParams(), context);
+            // CONTEXT 参数在任务执行时才从请求上下文中获取，编译期无需上下文
+            Map<String, Object> params = handleTaskParams(detail.getTaskParams(), null);
             detail.setParams(params);
         });
     }
@@ -239,53 +719,84 @@ public class TaskEngine {
     }
 
     /**
-     * 执行任务图中的任务
-     *
-     * @param graph   任务图
-     * @param context 请求上下文
+     * TaskEngine 构建器
      */
-    private CompletableFuture<Void> arrangeToOneFuture(TaskGraph graph, RequestContext context) {
-        // 存储任务节点及其对应的CompletableFuture
-        Map<TaskGraph.TaskNode, CompletableFuture<Void>> futures = new HashMap<>();
+    public static final class Builder {
+        private String name = "haidu";
+        private ExecutorService taskThreadPool;
+        private ExecutorMode executorMode = ExecutorMode.PLATFORM;
+        private final Map<String, Executor> executors = new LinkedHashMap<>();
+        private TaskMonitor monitor = TaskMonitor.NOOP;
+        private TaskScheduler scheduler = FifoTaskScheduler.INSTANCE;
+        private AdmissionController admissionController = AdmissionController.NONE;
 
-        // 提交所有任务节点
-        for (TaskGraph.TaskNode taskNode : graph.getAllTasks()) {
-            submitTask(taskNode, futures, context);
+        private Builder() {
         }
 
-        // 等待所有任务完成
-        return CompletableFuture.allOf(
-                futures.values().toArray(new CompletableFuture[0]));
-    }
+        /**
+         * 引擎名称，用于线程命名
+         */
+        public Builder name(String name) {
+            if (StringUtils.isBlank(name)) {
+                throw new IllegalArgumentException("engine name is blank");
+            }
+            this.name = name;
+            return this;
+        }
 
-    /**
-     * 提交任务节点，并处理其依赖关系
-     *
-     * @param node    任务节点
-     * @param futures 存储任务节点及其对应的CompletableFuture
-     * @param context 请求上下文
-     * @return 任务节点的CompletableFuture
-     */
-    private CompletableFuture<Void> submitTask(TaskGraph.TaskNode node,
-                                               Map<TaskGraph.TaskNode, CompletableFuture<Void>> futures, RequestContext context) {
-        // 如果任务节点已经提交过，则直接返回其CompletableFuture
-        if (futures.containsKey(node)) {
-            return futures.get(node);
+        /**
+         * 默认任务线程池，由调用方负责关闭；不设置时按 {@link #executorMode(ExecutorMode)} 创建
+         */
+        public Builder executor(ExecutorService taskThreadPool) {
+            this.taskThreadPool = taskThreadPool;
+            return this;
         }
 
-        // 提交依赖任务
-        List<CompletableFuture<Void>> dependencyFutures = node.getDependencies().stream()
-                .map(dep -> submitTask(dep, futures, context))
-                .toList();
+        /**
+         * 未设置默认任务线程池时创建的线程池模式，默认为 {@link ExecutorMode#PLATFORM}
+         */
+        public Builder executorMode(ExecutorMode executorMode) {
+            this.executorMode = executorMode != null ? executorMode : ExecutorMode.PLATFORM;
+            return this;
+        }
 
-        // 提交当前任务，并在所有依赖任务完成后执行
-        CompletableFuture<Void> taskFuture = CompletableFuture.allOf(
-                        dependencyFutures.toArray(new CompletableFuture[0]))
-                .thenRunAsync(() -> node.getTask().accept(context), taskThreadPool);
+        /**
+         * 注册命名线程池，任务详情通过 executor 指定名称使用
+         */
+        public Builder executor(String name, Executor executor) {
+            if (executors.putIfAbsent(name, executor) != null) {
+                throw new IllegalArgumentException("executor already registered: " + name);
+            }
+            return this;
+        }
 
-        // 将任务节点及其CompletableFuture存储到futures中
-        futures.put(node, taskFuture);
-        return taskFuture;
+        /**
+         * 任务监控
+         */
+        public Builder monitor(TaskMonitor monitor) {
+            this.monitor = monitor != null ? monitor : TaskMonitor.NOOP;
+            return this;
+        }
+
+        /**
+         * 就绪节点的调度策略，默认为 {@link FifoTaskScheduler}，线程池繁忙时可使用 {@link CriticalPathTaskScheduler}
+         */
+        public Builder scheduler(TaskScheduler scheduler) {
+            this.scheduler = scheduler != null ? scheduler : FifoTaskScheduler.INSTANCE;
+            return this;
+        }
+
+        /**
+         * 任务流准入控制，默认不做控制，可使用 {@link com.oneinstep.haidu.admission.DeadlineAdmissionController}
+         */
+        public Builder admissionController(AdmissionController admissionController) {
+            this.admissionController = admissionController != null ? admissionController : AdmissionController.NONE;
+            return this;
+        }
+
+        public TaskEngine build() {
+            return new TaskEngine(this);
+        }
     }
 
 }
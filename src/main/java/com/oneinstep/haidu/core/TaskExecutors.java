@@ -0,0 +1,97 @@
+package com.oneinstep.haidu.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务线程池工厂
+ * <p>
+ * 项目以 Java 17 编译，虚拟线程通过方法句柄在运行时查找，运行在 Java 21 及以上时可用。
+ * <p>
+ * 虚拟线程在 synchronized 块内或 native 调用中阻塞时会占用（pin）载体线程，载体线程数量默认等于 CPU 核数，
+ * 任务中阻塞 I/O 外层的锁应使用 {@link java.util.concurrent.locks.ReentrantLock}。
+ * 可以通过 -Djdk.tracePinnedThreads=short 定位发生 pinning 的代码。
+ */
+@Slf4j
+public final class TaskExecutors {
+
+    // Executors.newVirtualThreadPerTaskExecutor，Java 21 以下为 null
+    private static final MethodHandle VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * 创建指定模式的任务线程池
+     *
+     * @param mode 线程池模式
+     * @return 任务线程池
+     */
+    public static ExecutorService create(ExecutorMode mode) {
+        if (mode == ExecutorMode.VIRTUAL) {
+            return newVirtualThreadExecutor();
+        }
+        return newPlatformExecutor();
+    }
+
+    /**
+     * 创建默认的平台线程池
+     *
+     * @return 任务线程池
+     */
+    public static ExecutorService newPlatformExecutor() {
+        return new ThreadPoolExecutor(
+                100,
+                100,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(128),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池
+     *
+     * @return 任务线程池
+     * @throws UnsupportedOperationException 运行时低于 Java 21
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if (VIRTUAL_THREAD_EXECUTOR == null) {
+            throw new UnsupportedOperationException(
+                    "virtual threads require Java 21 or later, current: " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("create virtual thread executor error", e);
+        }
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    private static MethodHandle findVirtualThreadExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            log.debug("virtual threads are not supported by the current runtime: {}", Runtime.version());
+            return null;
+        }
+    }
+
+}
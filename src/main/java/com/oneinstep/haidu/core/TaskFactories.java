@@ -0,0 +1,84 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.exception.HaiduException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.*;
+import java.util.function.Supplier;
+
+/**
+ * 任务工厂缓存
+ * <p>
+ * 每个任务类只解析一次无参构造器，并通过 {@link LambdaMetafactory} 生成直接调用构造器的 {@link Supplier}，
+ * 之后创建任务实例等同于一次普通的 new 调用，没有反射开销。
+ * 缓存基于 {@link ClassValue}，随任务类（及其类加载器）一起回收。
+ */
+@Slf4j
+public class TaskFactories {
+
+    private static final MethodType SUPPLIER_TYPE = MethodType.methodType(Supplier.class);
+    private static final MethodType GET_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class);
+
+    private static final ClassValue<Supplier<AbstractTask<?>>> FACTORIES = new ClassValue<>() {
+        @Override
+        protected Supplier<AbstractTask<?>> computeValue(Class<?> type) {
+            return createFactory(type);
+        }
+    };
+
+    private TaskFactories() {
+    }
+
+    /**
+     * 获取任务类的工厂
+     *
+     * @param taskClass 任务类
+     * @return 任务工厂
+     */
+    public static Supplier<AbstractTask<?>> getFactory(Class<?> taskClass) {
+        if (!AbstractTask.class.isAssignableFrom(taskClass)) {
+            throw new HaiduException("任务类必须继承 AbstractTask: " + taskClass.getName());
+        }
+        return FACTORIES.get(taskClass);
+    }
+
+    /**
+     * 创建任务工厂，优先使用 LambdaMetafactory，无法生成时退化为 MethodHandle 调用
+     */
+    @SuppressWarnings("unchecked")
+    private static Supplier<AbstractTask<?>> createFactory(Class<?> taskClass) {
+        MethodHandle constructor;
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(taskClass, MethodHandles.lookup());
+            constructor = lookup.findConstructor(taskClass, CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            log.error("there is no accessible default constructor, taskClass={}", taskClass.getName(), e);
+            throw new HaiduException(e);
+        }
+
+        try {
+            // 生成的 Supplier 定义在任务类所在的类加载器中
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", SUPPLIER_TYPE, GET_TYPE,
+                    constructor, MethodType.methodType(taskClass));
+            return (Supplier<AbstractTask<?>>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            log.debug("LambdaMetafactory unavailable for taskClass={}, fallback to MethodHandle.",
+                    taskClass.getName(), e);
+        }
+
+        MethodHandle generic = constructor.asType(GET_TYPE);
+        return () -> {
+            try {
+                Object task = generic.invokeExact();
+                return (AbstractTask<?>) task;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new HaiduException(e);
+            }
+        };
+    }
+
+}
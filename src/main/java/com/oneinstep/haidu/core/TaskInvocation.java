@@ -0,0 +1,219 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.cache.ResultCache;
+import com.oneinstep.haidu.flight.SingleFlight;
+import com.oneinstep.haidu.result.Result;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次任务节点的执行状态
+ * <p>
+ * 任务线程写入结果和超时定时器之间通过 CAS 竞争，只有一方能够完成该节点：
+ * 任务线程抢先时结果正常写入；定时器抢先时节点以超时结束，之后任务线程产生的结果会被丢弃。
+ * 重试的多次执行共用同一个状态，超时时间覆盖所有重试和重试之间的等待。
+ * 对冲调用使用 {@link #hedge()} 创建的状态，与主调用共享完成状态，但各自记录执行线程和异步调用，以便单独取消。
+ * 开启结果缓存时记录本次的缓存键，结果写入上下文时一并写入缓存。
+ */
+final class TaskInvocation {
+
+    private static final int RUNNING = 0;
+    private static final int COMPLETED = 1;
+    private static final int TIMED_OUT = 2;
+
+    private final AtomicInteger state;
+    // 开始执行的时刻，纳秒
+    private final long startTime;
+    // 已失败的次数
+    private int attempts;
+    // 超时定时任务
+    private HashedWheelTimer.Timeout deadline;
+    // 正在执行任务的线程，执行结束后置空，避免中断到线程池中的其他任务
+    private Thread runner;
+    // 尚未完成的异步调用
+    private Future<?> pending;
+    // 是否向执行线程发出过中断，解除绑定时清除
+    private boolean interruptIssued;
+    // 最近一次发起的对冲调用
+    private volatile TaskInvocation hedge;
+    // 本次执行代表的合并调用，节点结束时通知等待的请求
+    private SingleFlight.Call flight;
+    // 结果缓存，未开启时为 null
+    private ResultCache cache;
+    // 本次执行的缓存键
+    private Object cacheKey;
+
+    TaskInvocation() {
+        this.state = new AtomicInteger(RUNNING);
+        this.startTime = System.nanoTime();
+    }
+
+    private TaskInvocation(TaskInvocation primary) {
+        this.state = primary.state;
+        this.startTime = primary.startTime;
+        this.cache = primary.cache;
+        this.cacheKey = primary.cacheKey;
+    }
+
+    /**
+     * 创建一次对冲调用的状态，与本状态共享完成状态，超时中断时一并中断
+     *
+     * @return 对冲调用的状态
+     */
+    TaskInvocation hedge() {
+        TaskInvocation invocation = new TaskInvocation(this);
+        this.hedge = invocation;
+        return invocation;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @return 已失败的次数
+     */
+    int failed() {
+        return ++attempts;
+    }
+
+    void setFlight(SingleFlight.Call flight) {
+        this.flight = flight;
+    }
+
+    /**
+     * 节点结束，通知合并到本次执行的请求
+     *
+     * @param result 执行结果，没有结果时为 null
+     * @param error  执行异常，成功时为 null
+     */
+    void completeFlight(Result<?> result, Throwable error) {
+        if (flight != null) {
+            flight.complete(result, error);
+        }
+    }
+
+    void setCache(ResultCache cache, Object cacheKey) {
+        this.cache = cache;
+        this.cacheKey = cacheKey;
+    }
+
+    /**
+     * 写入结果缓存，只缓存成功的结果
+     *
+     * @param result 写入上下文的结果
+     */
+    void cacheResult(Result<?> result) {
+        if (cache != null && result != null && result.success()) {
+            cache.put(cacheKey, result);
+        }
+    }
+
+    void setDeadline(HashedWheelTimer.Timeout deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * 取消超时定时任务
+     */
+    void cancelDeadline() {
+        if (deadline != null) {
+            deadline.cancel();
+        }
+    }
+
+    /**
+     * 任务线程完成该节点
+     *
+     * @return 是否由本次调用完成，已完成或已超时时返回 false
+     */
+    boolean complete() {
+        return state.compareAndSet(RUNNING, COMPLETED);
+    }
+
+    /**
+     * 定时器将该节点标记为超时
+     *
+     * @return 是否由本次调用标记超时，任务已完成时返回 false
+     */
+    boolean timeout() {
+        return state.compareAndSet(RUNNING, TIMED_OUT);
+    }
+
+    /**
+     * 是否已超时
+     *
+     * @return 是否已超时
+     */
+    boolean isTimedOut() {
+        return state.get() == TIMED_OUT;
+    }
+
+    /**
+     * 中断仍在执行任务的线程，并取消尚未完成的异步调用，包括对冲调用
+     *
+     * @return 是否发出了中断或取消
+     */
+    boolean interrupt() {
+        boolean interrupted = interruptRunner();
+        TaskInvocation current = hedge;
+        if (current != null) {
+            interrupted |= current.interruptRunner();
+        }
+        return interrupted;
+    }
+
+    /**
+     * 只中断本次调用的执行线程并取消本次的异步调用，用于取消对冲中落后的一方
+     *
+     * @return 是否发出了中断或取消
+     */
+    synchronized boolean interruptRunner() {
+        boolean interrupted = false;
+        if (runner != null) {
+            runner.interrupt();
+            interruptIssued = true;
+            interrupted = true;
+        }
+        if (pending != null) {
+            interrupted |= pending.cancel(true);
+        }
+        return interrupted;
+    }
+
+    /**
+     * 记录尚未完成的异步调用，超时中断时一并取消
+     *
+     * @param future 异步调用，完成后传入 null
+     */
+    synchronized void setPending(Future<?> future) {
+        this.pending = future;
+    }
+
+    /**
+     * 任务线程开始执行，绑定当前线程
+     */
+    synchronized void bind() {
+        runner = Thread.currentThread();
+    }
+
+    /**
+     * 任务线程执行结束，解除与线程的绑定
+     * 超时或对冲取消发出的中断不能遗留在线程池线程上，这里一并清除
+     */
+    void release() {
+        boolean interrupted;
+        synchronized (this) {
+            runner = null;
+            interrupted = interruptIssued;
+            interruptIssued = false;
+        }
+        if (interrupted || isTimedOut()) {
+            Thread.interrupted();
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.oneinstep.haidu.exception;
+
+import lombok.Getter;
+
+/**
+ * 任务的熔断器处于打开状态，任务没有执行且没有配置降级结果
+ */
+@Getter
+public class CircuitBreakerOpenException extends HaiduException {
+
+    // 任务ID
+    private final String taskId;
+
+    public CircuitBreakerOpenException(String taskId) {
+        super("circuit breaker is open: " + taskId);
+        this.taskId = taskId;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.oneinstep.haidu.exception;
+
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 指数退避重试策略，默认的重试策略
+ * <p>
+ * 第 n 次重试的基准等待时间为 initialDelayMillis * 2^(n-1)，不超过 maxDelayMillis；
+ * 实际等待时间在基准的一半到基准之间随机取值，避免大量请求在同一时刻重试同一个下游。
+ * 除 {@link Error} 外的异常和结果校验失败都会重试。
+ */
+@Getter
+public class ExponentialBackoffRetryStrategy implements RetryStrategy {
+
+    // 默认首次重试等待时间
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 100L;
+    // 默认最大重试等待时间
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 1000L;
+
+    // 首次重试等待时间
+    private final long initialDelayMillis;
+    // 最大重试等待时间
+    private final long maxDelayMillis;
+
+    public ExponentialBackoffRetryStrategy() {
+        this(DEFAULT_INITIAL_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public ExponentialBackoffRetryStrategy(long initialDelayMillis, long maxDelayMillis) {
+        if (initialDelayMillis < 0 || maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("invalid retry delay, initialDelayMillis=" + initialDelayMillis
+                    + ", maxDelayMillis=" + maxDelayMillis);
+        }
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public boolean shouldRetry(Throwable e, int attempts) {
+        return !(e instanceof Error);
+    }
+
+    @Override
+    public long getDelayMillis(int attempts) {
+        if (initialDelayMillis == 0) {
+            return 0;
+        }
+        int shift = Math.min(Math.max(attempts - 1, 0), 62);
+        // 先与上限比较，避免移位溢出
+        long base = initialDelayMillis > (maxDelayMillis >> shift) ? maxDelayMillis : initialDelayMillis << shift;
+        long half = base / 2;
+        return half + ThreadLocalRandom.current().nextLong(base - half + 1);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.oneinstep.haidu.exception;
+
+import lombok.Getter;
+
+/**
+ * 任务流在开始执行前被拒绝，没有任何任务被执行，调用方可以安全地在其他实例上重试
+ */
+@Getter
+public class FlowRejectedException extends HaiduException {
+
+    // 编排名称
+    private final String arrangeName;
+    // 拒绝原因
+    private final Reason reason;
+
+    public FlowRejectedException(String arrangeName, Reason reason, String message) {
+        super(message);
+        this.arrangeName = arrangeName;
+        this.reason = reason;
+    }
+
+    /**
+     * 拒绝原因
+     */
+    public enum Reason {
+        // 线程池排队时间持续过长
+        OVERLOADED,
+        // 执行中的任务流数量达到上限
+        CONCURRENCY,
+        // 预计无法在请求截止时间前完成
+        DEADLINE
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.oneinstep.haidu.exception;
+
+import lombok.Getter;
+
+/**
+ * 任务的令牌不足，且在允许的等待时间内无法获得令牌，任务没有执行
+ */
+@Getter
+public class RateLimitedException extends HaiduException {
+
+    // 任务ID
+    private final String taskId;
+
+    public RateLimitedException(String taskId) {
+        super("rate limit exceeded: " + taskId);
+        this.taskId = taskId;
+    }
+
+}
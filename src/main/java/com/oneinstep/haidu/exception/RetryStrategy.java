@@ -1,8 +1,25 @@
 package com.oneinstep.haidu.exception;
 
-// 支持自定义异常重试策略
+/**
+ * 支持自定义异常重试策略
+ * 同一个任务节点的所有请求共享一个策略实例，实现必须是线程安全的
+ */
 public interface RetryStrategy {
+
+    /**
+     * 是否继续重试，重试次数上限由任务的 retries 控制
+     *
+     * @param e        本次失败的异常，结果校验未通过时为 null
+     * @param attempts 已失败的次数，从 1 开始
+     * @return 是否重试
+     */
     boolean shouldRetry(Throwable e, int attempts);
 
+    /**
+     * 下一次重试前的等待时间，等待期间不占用任务线程
+     *
+     * @param attempts 已失败的次数，从 1 开始
+     * @return 等待毫秒数，不大于 0 时立即重试
+     */
     long getDelayMillis(int attempts);
 }
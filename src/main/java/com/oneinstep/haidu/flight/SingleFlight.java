@@ -0,0 +1,151 @@
+package com.oneinstep.haidu.flight;
+
+import com.oneinstep.haidu.result.Result;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并同一任务、同一参数的并发调用，同一时刻只有一次真正执行，其余请求等待并共享它的结果
+ * <p>
+ * 任务ID只在一个任务配置内唯一，合并键同时包含任务类，不同配置中任务ID相同但实现不同的任务不会共享结果。
+ * <p>
+ * 第一个到达的请求成为执行者，执行结束后从进行中的调用中移除并通知等待者；之后到达的请求重新执行，不缓存结果。
+ * 等待者不占用线程，在执行者完成的线程上继续处理。共享的 {@link Result} 是同一个对象，下游任务应只读使用。
+ */
+public final class SingleFlight {
+
+    // 进行中的调用
+    private final Map<Key, CompletableFuture<Result<?>>> calls = new ConcurrentHashMap<>();
+    // 被合并的调用数量
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 加入同一任务、同一参数的进行中调用，没有进行中的调用时成为执行者
+     *
+     * @param taskClass 任务类
+     * @param taskId    任务ID
+     * @param params    本次请求解析后的任务参数
+     * @return 本次加入的调用，执行者必须调用 {@link Call#complete(Result, Throwable)}
+     */
+    public Call join(Class<?> taskClass, String taskId, Map<String, Object> params) {
+        Key key = new Key(taskClass, taskId, params);
+        CompletableFuture<Result<?>> future = new CompletableFuture<>();
+        CompletableFuture<Result<?>> inFlight = calls.putIfAbsent(key, future);
+        if (inFlight == null) {
+            return new Call(key, future, true);
+        }
+        coalesced.increment();
+        return new Call(key, inFlight, false);
+    }
+
+    /**
+     * 获取被合并的调用数量
+     *
+     * @return 没有真正执行、共享了其他请求结果的调用数量
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 获取进行中的调用数量
+     *
+     * @return 进行中的调用数量
+     */
+    public int getInFlight() {
+        return calls.size();
+    }
+
+    /**
+     * 一个请求加入的调用
+     */
+    public final class Call {
+
+        private final Key key;
+        private final CompletableFuture<Result<?>> future;
+        private final boolean leader;
+
+        private Call(Key key, CompletableFuture<Result<?>> future, boolean leader) {
+            this.key = key;
+            this.future = future;
+            this.leader = leader;
+        }
+
+        /**
+         * 是否为执行者
+         *
+         * @return 是否需要真正执行
+         */
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * 执行结果，等待者在此注册后续处理
+         *
+         * @return 执行结果，没有结果（例如超时）时为 null
+         */
+        public CompletableFuture<Result<?>> getFuture() {
+            return future;
+        }
+
+        /**
+         * 执行者完成调用，先移除再通知等待者，之后到达的请求重新执行
+         *
+         * @param result 执行结果，没有结果时为 null
+         * @param error  执行异常，成功时为 null
+         */
+        public void complete(Result<?> result, Throwable error) {
+            if (!leader) {
+                throw new IllegalStateException("only the leader can complete a call: " + key.taskId);
+            }
+            calls.remove(key, future);
+            if (error == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * 任务类、任务ID和参数组成的合并键，参数在创建时复制，之后的修改不影响键
+     */
+    private static final class Key {
+
+        private final Class<?> taskClass;
+        private final String taskId;
+        private final Map<String, Object> params;
+        private final int hash;
+
+        private Key(Class<?> taskClass, String taskId, Map<String, Object> params) {
+            this.taskClass = taskClass;
+            this.taskId = taskId;
+            this.params = params == null ? Map.of() : new HashMap<>(params);
+            this.hash = Objects.hash(taskClass, taskId, this.params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return hash == key.hash && taskClass == key.taskClass && taskId.equals(key.taskId)
+                    && params.equals(key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
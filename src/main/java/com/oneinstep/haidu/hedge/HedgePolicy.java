@@ -0,0 +1,131 @@
+package com.oneinstep.haidu.hedge;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个任务的对冲策略，同一任务在引擎的所有请求中共享
+ * <p>
+ * 记录最近 1024 次执行的耗时，以其中 percentile 分位的耗时作为对冲延迟：执行超过该延迟仍未完成时再发起一次调用。
+ * 按分位数取延迟保证了额外调用的比例上限，例如 95 分位最多对约 5% 的执行发起对冲。
+ * <p>
+ * 记录耗时只写入环形数组，不加锁；分位数最多每 100ms 由一个线程重新计算一次，其余线程读取缓存的结果。
+ * 样本不足 20 个时不发起对冲。
+ */
+public final class HedgePolicy {
+
+    // 默认对冲延迟的分位数
+    public static final double DEFAULT_PERCENTILE = 95D;
+    // 保留的样本数量，2 的幂
+    private static final int SAMPLES = 1024;
+    // 开始对冲所需的最少样本数量
+    private static final int MIN_SAMPLES = 20;
+    // 重新计算分位数的间隔，纳秒
+    private static final long REFRESH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // 任务ID
+    @Getter
+    private final String taskId;
+    // 对冲延迟的分位数
+    @Getter
+    private final double percentile;
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    // 已记录的样本总数
+    private final AtomicLong recorded = new AtomicLong();
+    // 下次重新计算分位数的时刻，纳秒
+    private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+    // 缓存的对冲延迟，纳秒，样本不足时为 -1
+    private volatile long delay = -1;
+    // 已发起的对冲调用数量
+    private final LongAdder hedges = new LongAdder();
+    // 对冲调用先完成的数量
+    private final LongAdder wins = new LongAdder();
+
+    /**
+     * @param taskId     任务ID
+     * @param percentile 对冲延迟的分位数，0 到 100 之间
+     */
+    public HedgePolicy(String taskId, double percentile) {
+        if (!(percentile > 0 && percentile < 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        this.taskId = taskId;
+        this.percentile = percentile;
+    }
+
+    /**
+     * 记录一次成功执行的耗时
+     *
+     * @param latencyNanos 耗时，纳秒
+     */
+    public void record(long latencyNanos) {
+        long sequence = recorded.getAndIncrement();
+        samples.set((int) (sequence & (SAMPLES - 1)), latencyNanos);
+    }
+
+    /**
+     * 获取当前的对冲延迟
+     *
+     * @return 对冲延迟，纳秒，样本不足时返回 -1 表示不对冲
+     */
+    public long getDelayNanos() {
+        long now = System.nanoTime();
+        long refresh = nextRefresh.get();
+        if (now - refresh >= 0 && nextRefresh.compareAndSet(refresh, now + REFRESH_INTERVAL)) {
+            delay = computeDelay();
+        }
+        return delay;
+    }
+
+    private long computeDelay() {
+        int size = (int) Math.min(recorded.get(), SAMPLES);
+        if (size < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, rank)];
+    }
+
+    /**
+     * 记录一次发起的对冲调用
+     */
+    public void onHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * 记录一次对冲调用先于主调用成功
+     */
+    public void onHedgeWin() {
+        wins.increment();
+    }
+
+    /**
+     * 获取已发起的对冲调用数量
+     *
+     * @return 对冲调用数量
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * 获取对冲调用先于主调用成功的数量
+     *
+     * @return 对冲调用胜出的数量
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.oneinstep.haidu.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 加性增、乘性减（AIMD）的并发上限
+ * <p>
+ * 执行失败或超时时上限乘以 backoffRatio；成功且正在执行的数量达到上限的一半时上限加 1，
+ * 并发远低于上限时上限不再增长，避免空闲时上限无限膨胀。
+ */
+public final class AimdLimit implements LimitAlgorithm {
+
+    // 失败时上限的缩小比例
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final AtomicInteger limit;
+    private final int maxLimit;
+    private final double backoffRatio;
+
+    public AimdLimit(int initialLimit, int maxLimit) {
+        this(initialLimit, maxLimit, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AimdLimit(int initialLimit, int maxLimit, double backoffRatio) {
+        if (maxLimit < 1 || initialLimit < 1 || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limit must satisfy 1 <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1: " + backoffRatio);
+        }
+        this.limit = new AtomicInteger(initialLimit);
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public void onSample(long rtt, int inFlight, boolean dropped) {
+        limit.updateAndGet(current -> {
+            if (dropped) {
+                return Math.max(1, (int) (current * backoffRatio));
+            }
+            if (inFlight * 2 >= current) {
+                return Math.min(maxLimit, current + 1);
+            }
+            return current;
+        });
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.oneinstep.haidu.limit;
+
+import lombok.Getter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个任务的自适应并发限制，同一任务在引擎的所有请求中共享
+ * <p>
+ * 获取不到许可的节点进入等待队列，不占用任何线程；执行结束释放许可时，由释放许可的线程取出等待的节点继续提交。
+ * 并发上限由 {@link LimitAlgorithm} 根据执行耗时和失败情况调整。
+ */
+public final class ConcurrencyLimiter {
+
+    // 加性增、乘性减，见 AimdLimit
+    public static final String AIMD = "aimd";
+    // 延迟梯度，见 GradientLimit
+    public static final String GRADIENT = "gradient";
+    // 默认的并发上限最大值
+    public static final int DEFAULT_MAX_CONCURRENCY = 200;
+    // 初始并发上限
+    private static final int INITIAL_LIMIT = 20;
+
+    // 任务ID
+    @Getter
+    private final String taskId;
+    private final LimitAlgorithm algorithm;
+    // 已获取许可的数量
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 等待许可的节点
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public ConcurrencyLimiter(String taskId, LimitAlgorithm algorithm) {
+        this.taskId = taskId;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * 按算法名称创建并发限制
+     *
+     * @param taskId         任务ID
+     * @param algorithm      算法名称，aimd 或 gradient，忽略大小写
+     * @param maxConcurrency 并发上限的最大值
+     * @return 并发限制
+     */
+    public static ConcurrencyLimiter create(String taskId, String algorithm, int maxConcurrency) {
+        int initialLimit = Math.min(INITIAL_LIMIT, maxConcurrency);
+        if (AIMD.equalsIgnoreCase(algorithm)) {
+            return new ConcurrencyLimiter(taskId, new AimdLimit(initialLimit, maxConcurrency));
+        }
+        if (GRADIENT.equalsIgnoreCase(algorithm)) {
+            return new ConcurrencyLimiter(taskId, new GradientLimit(initialLimit, maxConcurrency));
+        }
+        throw new IllegalArgumentException("unknown concurrency limit algorithm: " + algorithm);
+    }
+
+    /**
+     * 是否为支持的算法名称
+     *
+     * @param algorithm 算法名称
+     * @return 是否支持
+     */
+    public static boolean isSupported(String algorithm) {
+        return AIMD.equalsIgnoreCase(algorithm) || GRADIENT.equalsIgnoreCase(algorithm);
+    }
+
+    /**
+     * 获取许可后执行，获取不到时排队，直到其他执行释放许可
+     *
+     * @param command 获取许可后执行的操作，应尽快返回且不抛出异常，执行结束后必须调用一次 release
+     */
+    public void execute(Runnable command) {
+        waiting.add(command);
+        drain();
+    }
+
+    /**
+     * 释放许可并记录本次执行的结果
+     *
+     * @param rtt     执行耗时，纳秒
+     * @param dropped 是否失败或超时
+     */
+    public void release(long rtt, boolean dropped) {
+        algorithm.onSample(rtt, inFlight.get(), dropped);
+        release();
+    }
+
+    /**
+     * 释放许可，不记录结果，用于没有真正执行的节点
+     */
+    public void release() {
+        this.inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            if (!tryAcquire()) {
+                // 释放许可的线程会在递减之后再次检查等待队列
+                return;
+            }
+            Runnable command = waiting.poll();
+            if (command == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            command.run();
+        }
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= algorithm.getLimit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * 获取当前的并发上限
+     *
+     * @return 并发上限
+     */
+    public int getLimit() {
+        return algorithm.getLimit();
+    }
+
+    /**
+     * 获取已获取许可的数量
+     *
+     * @return 正在执行的数量
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 获取等待许可的节点数量
+     *
+     * @return 等待的数量
+     */
+    public int getWaiting() {
+        return waiting.size();
+    }
+
+}
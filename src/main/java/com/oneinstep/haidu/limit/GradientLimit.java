@@ -0,0 +1,89 @@
+package com.oneinstep.haidu.limit;
+
+/**
+ * 按延迟梯度调整的并发上限，参考 Netflix concurrency-limits 的 Gradient2
+ * <p>
+ * 长期平均耗时代表下游正常时的延迟，短期平均耗时代表当前延迟。梯度 = tolerance × 长期 / 短期，限制在 [0.5, 1] 之间：
+ * 延迟上升时梯度小于 1，上限按比例缩小；延迟正常时梯度为 1，上限按 sqrt(limit) 的排队余量增长。
+ * 新上限与旧上限按 smoothing 平滑，正在执行的数量不足上限一半时不增长。
+ * 短期延迟远低于长期平均时（下游恢复），长期平均逐步衰减，避免上限长期停留在拥塞前的水平。
+ * <p>
+ * 采样只在任务完成时发生，使用同步保护多个浮点状态。
+ */
+public final class GradientLimit implements LimitAlgorithm {
+
+    // 延迟容忍度，短期延迟不超过长期平均的 1.5 倍时不缩小上限
+    public static final double DEFAULT_TOLERANCE = 1.5;
+    // 新旧上限的平滑系数
+    public static final double DEFAULT_SMOOTHING = 0.2;
+    // 长期平均的样本窗口
+    public static final int DEFAULT_LONG_WINDOW = 600;
+    // 短期平均的样本窗口
+    private static final int SHORT_WINDOW = 10;
+
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double longFactor;
+    private final double shortFactor = 2.0 / (SHORT_WINDOW + 1);
+    private volatile double limit;
+    private double longRtt;
+    private double shortRtt;
+
+    public GradientLimit(int initialLimit, int maxLimit) {
+        this(initialLimit, maxLimit, DEFAULT_TOLERANCE, DEFAULT_SMOOTHING, DEFAULT_LONG_WINDOW);
+    }
+
+    public GradientLimit(int initialLimit, int maxLimit, double tolerance, double smoothing, int longWindow) {
+        if (maxLimit < 1 || initialLimit < 1 || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limit must satisfy 1 <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must not be less than 1: " + tolerance);
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("smoothing must be between 0 and 1: " + smoothing);
+        }
+        if (longWindow <= SHORT_WINDOW) {
+            throw new IllegalArgumentException("longWindow must be greater than " + SHORT_WINDOW + ": " + longWindow);
+        }
+        this.limit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longFactor = 2.0 / (longWindow + 1);
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rtt, int inFlight, boolean dropped) {
+        if (rtt <= 0) {
+            return;
+        }
+        if (longRtt == 0) {
+            longRtt = rtt;
+            shortRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * shortFactor;
+        longRtt += (rtt - longRtt) * longFactor;
+        // 下游恢复后加快长期平均的回落
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        // 并发远低于上限时不增长
+        if (inFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(1, Math.min(maxLimit, newLimit));
+    }
+
+}
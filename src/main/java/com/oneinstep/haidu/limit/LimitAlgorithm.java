@@ -0,0 +1,24 @@
+package com.oneinstep.haidu.limit;
+
+/**
+ * 并发上限算法，根据每次执行的耗时调整允许同时执行的数量
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * 获取当前的并发上限
+     *
+     * @return 并发上限，不小于 1
+     */
+    int getLimit();
+
+    /**
+     * 记录一次执行的结果
+     *
+     * @param rtt      执行耗时，纳秒
+     * @param inFlight 本次执行结束时正在执行的数量，包含本次执行
+     * @param dropped  是否失败或超时
+     */
+    void onSample(long rtt, int inFlight, boolean dropped);
+
+}
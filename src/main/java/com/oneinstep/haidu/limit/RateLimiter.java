@@ -0,0 +1,96 @@
+package com.oneinstep.haidu.limit;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个任务的令牌桶限流，同一任务在引擎的所有请求中共享
+ * <p>
+ * 以 GCRA（通用信元速率算法）实现，与容量为 burst、每秒补充 permitsPerSecond 个令牌的令牌桶等价：
+ * 只维护一个理论到达时间 tat，每发放一个令牌 tat 后移一个发放间隔，tat 超前当前时间不超过 burst 个间隔时令牌可用。
+ * 全部状态是一个 AtomicLong，获取令牌只需一次 CAS，不加锁。
+ * <p>
+ * 令牌不足时可以预约未来的令牌，调用方按返回的等待时间通过定时器延后执行，等待期间不占用线程。
+ */
+public final class RateLimiter {
+
+    // 任务ID
+    @Getter
+    private final String taskId;
+    // 每秒发放的令牌数量
+    @Getter
+    private final double permitsPerSecond;
+    // 桶容量，允许的突发数量
+    @Getter
+    private final int burst;
+    // 发放间隔，纳秒
+    private final long interval;
+    // 允许 tat 超前当前时间的最大值，纳秒
+    private final long tolerance;
+    // 理论到达时间，纳秒
+    private final AtomicLong tat;
+
+    /**
+     * @param taskId           任务ID
+     * @param permitsPerSecond 每秒发放的令牌数量
+     * @param burst            桶容量，空闲后允许立即执行的数量
+     */
+    public RateLimiter(String taskId, double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.taskId = taskId;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.tolerance = interval * (burst - 1);
+        // 初始时桶是满的
+        this.tat = new AtomicLong(System.nanoTime() - interval);
+    }
+
+    /**
+     * 默认桶容量为一秒的令牌数量，至少为 1
+     *
+     * @param permitsPerSecond 每秒发放的令牌数量
+     * @return 默认桶容量
+     */
+    public static int defaultBurst(double permitsPerSecond) {
+        return (int) Math.max(1, Math.ceil(permitsPerSecond));
+    }
+
+    /**
+     * 立即获取一个令牌
+     *
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * 预约一个令牌
+     *
+     * @param maxWaitNanos 最多等待的时间，纳秒，为 0 时只在令牌立即可用时获取
+     * @return 需要等待的纳秒数，令牌立即可用时为 0；等待时间超过 maxWaitNanos 时不预约并返回 -1
+     */
+    public long reserve(long maxWaitNanos) {
+        return reserve(System.nanoTime(), maxWaitNanos);
+    }
+
+    long reserve(long now, long maxWaitNanos) {
+        while (true) {
+            long current = tat.get();
+            long base = current - now > 0 ? current : now;
+            long wait = base - tolerance - now;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (tat.compareAndSet(current, base + interval)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+}
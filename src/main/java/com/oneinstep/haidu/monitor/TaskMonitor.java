@@ -1,16 +1,34 @@
 package com.oneinstep.haidu.monitor;
 
+/**
+ * 任务监控，由引擎在任务执行的各个阶段回调
+ * 回调在任务线程或定时器线程上同步执行，实现必须线程安全、尽快返回且不抛出异常
+ * 时间单位均为纳秒
+ */
 public interface TaskMonitor {
-    void onTaskStart(String taskId);
 
-    void onTaskComplete(String taskId, long duration);
+    /**
+     * 不做任何处理的监控，引擎未配置监控时使用
+     */
+    TaskMonitor NOOP = new TaskMonitor() {
+    };
 
-    void onTaskError(String taskId, Throwable error);
+    default void onTaskStart(String taskId) {
+    }
 
-    void onTaskTimeout(String taskId);
+    default void onTaskComplete(String taskId, long duration) {
+    }
+
+    default void onTaskError(String taskId, Throwable error) {
+    }
+
+    default void onTaskTimeout(String taskId) {
+    }
 
     // 性能指标
-    void recordTaskDuration(String taskId, long duration);
+    default void recordTaskDuration(String taskId, long duration) {
+    }
 
-    void recordTaskQueueTime(String taskId, long queueTime);
-}
\ No newline at end of file
+    default void recordTaskQueueTime(String taskId, long queueTime) {
+    }
+}
@@ -2,6 +2,7 @@ package com.oneinstep.haidu.parser;
 
 import com.oneinstep.haidu.config.TaskDetail;
 import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.core.TaskFactories;
 import com.oneinstep.haidu.exception.HaiduException;
 import com.oneinstep.haidu.exception.IllegalTaskConfigException;
 import lombok.extern.slf4j.Slf4j;
@@ -108,8 +109,8 @@ public class ExpressionParser {
                 log.error("there is no task class name in the taskClassNameMap.");
                 throw new HaiduException("无效taskClassName");
             }
-            // 通过反射创建任务实例
-            task = (AbstractTask<?>) Class.forName(taskClassName).getDeclaredConstructor().newInstance();
+            // 通过缓存的任务工厂创建任务实例
+            task = TaskFactories.getFactory(Class.forName(taskClassName)).get();
             task.setTaskId(taskId);
             task.setRetryTimes(retryTimes);
             task.setTimeout(timeout);
@@ -0,0 +1,162 @@
+package com.oneinstep.haidu.plan;
+
+import com.oneinstep.haidu.config.ArrangeMode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行计划，由 {@link com.oneinstep.haidu.config.TaskConfig} 编译得到
+ * <p>
+ * 编排规则在编译时完成解析、建图和循环依赖检测，之后的每次请求只按下标遍历节点，
+ * 不再做字符串解析和集合分配。执行计划不可变，可以被并发的请求共享。
+ * <p>
+ * 所有编排组合并为一个全局 DAG，组之间的先后关系由屏障节点表达，见 {@link ExecutionPlanCompiler}。
+ */
+public final class ExecutionPlan {
+
+    // 编排名称
+    @Getter
+    private final String arrangeName;
+    // 编译时的配置版本
+    @Getter
+    private final String version;
+    // 编排模式
+    @Getter
+    private final ArrangeMode arrangeMode;
+    // 所有节点，下标即节点ID
+    private final PlanNode[] nodes;
+    // 每个编排组内的节点下标，已按拓扑序排列
+    private final int[][] groups;
+    // 全局拓扑序，包含屏障节点
+    private final int[] topologicalOrder;
+    // 没有前置节点的节点下标
+    private final int[] roots;
+    // 每个节点的前置节点数量
+    private final int[] dependencyCounts;
+    // 任务ID -> 节点下标
+    private final Map<String, Integer> nodeIndexMap;
+    // 任务节点使用的线程池名称，去重，null 表示默认线程池
+    private final List<String> executors;
+
+    ExecutionPlan(String arrangeName, String version, ArrangeMode arrangeMode, PlanNode[] nodes, int[][] groups,
+                  int[] topologicalOrder, Map<String, Integer> nodeIndexMap) {
+        this.arrangeName = arrangeName;
+        this.version = version;
+        this.arrangeMode = arrangeMode;
+        this.nodes = nodes;
+        this.groups = groups;
+        this.topologicalOrder = topologicalOrder;
+        this.dependencyCounts = new int[nodes.length];
+        int rootCount = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            dependencyCounts[i] = nodes[i].predecessors().length;
+            if (dependencyCounts[i] == 0) {
+                rootCount++;
+            }
+        }
+        this.roots = new int[rootCount];
+        for (int i = 0, r = 0; i < nodes.length; i++) {
+            if (dependencyCounts[i] == 0) {
+                roots[r++] = i;
+            }
+        }
+        this.nodeIndexMap = Collections.unmodifiableMap(nodeIndexMap);
+        List<String> executorNames = new ArrayList<>();
+        for (PlanNode node : nodes) {
+            if (!node.isBarrier() && !executorNames.contains(node.getExecutor())) {
+                executorNames.add(node.getExecutor());
+            }
+        }
+        this.executors = Collections.unmodifiableList(executorNames);
+    }
+
+    /**
+     * 获取节点数量，包含屏障节点
+     *
+     * @return 节点数量
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * 获取节点
+     *
+     * @param index 节点下标
+     * @return 节点
+     */
+    public PlanNode getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * 根据任务ID获取任务节点
+     *
+     * @param taskId 任务ID
+     * @return 节点，不存在时返回 null
+     */
+    public PlanNode getNode(String taskId) {
+        Integer index = nodeIndexMap.get(taskId);
+        return index == null ? null : nodes[index];
+    }
+
+    /**
+     * 获取编排组数量
+     *
+     * @return 编排组数量
+     */
+    public int groupCount() {
+        return groups.length;
+    }
+
+    /**
+     * 获取编排组内按拓扑序排列的节点下标，返回内部数组，调用方不得修改
+     *
+     * @param groupIndex 编排组下标
+     * @return 节点下标
+     */
+    public int[] getGroup(int groupIndex) {
+        return groups[groupIndex];
+    }
+
+    /**
+     * 获取全局拓扑序，返回内部数组，调用方不得修改
+     *
+     * @return 按拓扑序排列的节点下标
+     */
+    public int[] getTopologicalOrder() {
+        return topologicalOrder;
+    }
+
+    /**
+     * 获取没有前置节点的节点下标，返回内部数组，调用方不得修改
+     *
+     * @return 节点下标
+     */
+    public int[] getRoots() {
+        return roots;
+    }
+
+    /**
+     * 获取任务节点使用的线程池名称
+     *
+     * @return 去重后的线程池名称，null 表示默认线程池
+     */
+    public List<String> getExecutors() {
+        return executors;
+    }
+
+    /**
+     * 获取每个节点的前置节点数量，返回内部数组，调用方不得修改
+     *
+     * @return 按节点下标排列的前置节点数量
+     */
+    public int[] getDependencyCounts() {
+        return dependencyCounts;
+    }
+
+}
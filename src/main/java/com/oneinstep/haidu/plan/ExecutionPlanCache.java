@@ -0,0 +1,79 @@
+package com.oneinstep.haidu.plan;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.oneinstep.haidu.config.TaskConfig;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * 执行计划缓存
+ * <p>
+ * 以配置对象的身份（而非 equals）作为 key，配置对象被回收后对应的计划也会被回收。
+ * 缓存命中时还会比对 {@link TaskConfig#getVersion()}，版本变化后重新编译。
+ */
+public class ExecutionPlanCache {
+
+    private final Cache<TaskConfig, ExecutionPlan> cache = CacheBuilder.newBuilder()
+            // weakKeys 使用 == 比较 key
+            .weakKeys()
+            .build();
+
+    /**
+     * 获取执行计划，不存在或版本不一致时编译
+     *
+     * @param taskConfig 任务配置
+     * @param compiler   编译函数
+     * @return 执行计划
+     */
+    public ExecutionPlan get(TaskConfig taskConfig, Function<TaskConfig, ExecutionPlan> compiler) {
+        ExecutionPlan plan = cache.getIfPresent(taskConfig);
+        if (plan != null && Objects.equals(plan.getVersion(), taskConfig.getVersion())) {
+            return plan;
+        }
+        if (plan != null) {
+            // 版本变化，丢弃旧计划
+            cache.asMap().remove(taskConfig, plan);
+        }
+        try {
+            return cache.get(taskConfig, () -> compiler.apply(taskConfig));
+        } catch (UncheckedExecutionException e) {
+            // 编译异常原样抛出
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 使某个配置的执行计划失效
+     *
+     * @param taskConfig 任务配置
+     */
+    public void invalidate(TaskConfig taskConfig) {
+        cache.invalidate(taskConfig);
+    }
+
+    /**
+     * 使所有执行计划失效
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 获取缓存的执行计划数量
+     *
+     * @return 数量
+     */
+    public long size() {
+        return cache.size();
+    }
+
+}
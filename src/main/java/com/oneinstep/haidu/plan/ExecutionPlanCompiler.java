@@ -0,0 +1,424 @@
+package com.oneinstep.haidu.plan;
+
+import com.oneinstep.haidu.config.ArrangeMode;
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.exception.ExponentialBackoffRetryStrategy;
+import com.oneinstep.haidu.exception.HaiduException;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.exception.RetryStrategy;
+import com.oneinstep.haidu.limit.ConcurrencyLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * 执行计划编译器，将任务配置编译为 {@link ExecutionPlan}
+ * <p>
+ * 表达式规则与 {@link com.oneinstep.haidu.parser.ExpressionParser} 一致：
+ * ["task1,task2:task3"] 表示 task3 在 task1 和 task2 执行完后执行
+ * <p>
+ * 所有编排组被编译为一个全局 DAG。第一组、中间各组、最后一组构成三个阶段，
+ * 阶段之间插入屏障节点：屏障依赖上一阶段各组的末端任务，下一阶段各组的起始任务依赖屏障。
+ * 全局模式下声明了 dependsOn 的起始任务不依赖屏障，只依赖其声明的任务。
+ */
+@Slf4j
+public class ExecutionPlanCompiler {
+
+    private ExecutionPlanCompiler() {
+    }
+
+    /**
+     * 编译任务配置
+     * 调用前需要先处理好 {@link TaskDetail#getParams()}，编译时会对其做一次快照
+     *
+     * @param taskConfig 任务配置
+     * @return 执行计划
+     */
+    public static ExecutionPlan compile(TaskConfig taskConfig) {
+        if (taskConfig == null) {
+            log.warn("the task config is null.");
+            throw new IllegalTaskConfigException("任务配置为空");
+        }
+        List<List<String>> arrange = taskConfig.getArrangeRule();
+        if (CollectionUtils.isEmpty(arrange)) {
+            log.warn("the task arrange is empty...");
+            throw new IllegalTaskConfigException("任务编排为空");
+        }
+        Map<String, TaskDetail> taskDetailsMap = Optional.ofNullable(taskConfig.getTaskDetailsMap())
+                .orElse(Collections.emptyMap());
+        ArrangeMode arrangeMode = Optional.ofNullable(taskConfig.getArrangeMode()).orElse(ArrangeMode.GROUP);
+
+        // 任务ID -> 全局节点下标
+        Map<String, Integer> nodeIndexMap = new LinkedHashMap<>();
+        // 节点下标 -> 所属编排组
+        List<Integer> groupOfNode = new ArrayList<>();
+        // 节点下标 -> 前置节点下标
+        List<Set<Integer>> predecessorsOfNode = new ArrayList<>();
+        // 每个编排组内的节点
+        List<List<Integer>> groupNodesList = new ArrayList<>();
+
+        for (int groupIndex = 0; groupIndex < arrange.size(); groupIndex++) {
+            List<Integer> groupNodes = new ArrayList<>();
+            List<String> expressions = Optional.ofNullable(arrange.get(groupIndex)).orElse(Collections.emptyList());
+            for (String expression : expressions) {
+                // 解析任务表达式，获取并行任务和依赖任务
+                String[] parts = expression.split(":");
+                String[] parallelTasks = parts[0].split(",");
+                int[] parallelIndexes = new int[parallelTasks.length];
+                for (int i = 0; i < parallelTasks.length; i++) {
+                    parallelIndexes[i] = addNode(parallelTasks[i], groupIndex, nodeIndexMap, groupOfNode,
+                            predecessorsOfNode, groupNodes);
+                }
+                // 处理依赖任务
+                if (parts.length > 1) {
+                    for (String dependentTaskId : parts[1].split(",")) {
+                        int dependent = addNode(dependentTaskId, groupIndex, nodeIndexMap, groupOfNode,
+                                predecessorsOfNode, groupNodes);
+                        for (int dependency : parallelIndexes) {
+                            addDependency(dependent, dependency, dependentTaskId, predecessorsOfNode);
+                        }
+                    }
+                }
+            }
+            groupNodesList.add(groupNodes);
+        }
+
+        // 各组的起始任务和末端任务，此时只有组内依赖
+        int taskCount = nodeIndexMap.size();
+        boolean[] root = new boolean[taskCount];
+        boolean[] hasSuccessorInGroup = new boolean[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            root[i] = predecessorsOfNode.get(i).isEmpty();
+            for (Integer predecessor : predecessorsOfNode.get(i)) {
+                hasSuccessorInGroup[predecessor] = true;
+            }
+        }
+
+        // 跨组依赖
+        boolean[] explicitDependency = new boolean[taskCount];
+        for (Map.Entry<String, Integer> entry : nodeIndexMap.entrySet()) {
+            TaskDetail taskDetail = taskDetailsMap.get(entry.getKey());
+            if (taskDetail == null || CollectionUtils.isEmpty(taskDetail.getDependsOn())) {
+                continue;
+            }
+            for (String dependencyId : taskDetail.getDependsOn()) {
+                Integer dependency = nodeIndexMap.get(dependencyId);
+                if (dependency == null) {
+                    throw new IllegalTaskConfigException("依赖的任务不在编排中: " + entry.getKey() + " -> "
+                            + dependencyId);
+                }
+                addDependency(entry.getValue(), dependency, entry.getKey(), predecessorsOfNode);
+            }
+            explicitDependency[entry.getValue()] = true;
+        }
+
+        // 阶段：第一组、中间各组、最后一组
+        List<List<Integer>> stages = new ArrayList<>();
+        stages.add(List.of(0));
+        if (arrange.size() > 2) {
+            List<Integer> parallelGroups = new ArrayList<>();
+            for (int i = 1; i < arrange.size() - 1; i++) {
+                parallelGroups.add(i);
+            }
+            stages.add(parallelGroups);
+        } else {
+            log.warn("没有并行任务组, arrangeName={}", taskConfig.getArrangeName());
+        }
+        if (arrange.size() >= 2) {
+            stages.add(List.of(arrange.size() - 1));
+        } else {
+            log.warn("没有后置任务组, arrangeName={}", taskConfig.getArrangeName());
+        }
+
+        // 阶段之间插入屏障节点
+        List<String> barrierIds = new ArrayList<>();
+        for (int stage = 1; stage < stages.size(); stage++) {
+            int barrier = predecessorsOfNode.size();
+            Set<Integer> barrierPredecessors = new LinkedHashSet<>();
+            for (Integer group : stages.get(stage - 1)) {
+                for (Integer node : groupNodesList.get(group)) {
+                    if (!hasSuccessorInGroup[node]) {
+                        barrierPredecessors.add(node);
+                    }
+                }
+            }
+            predecessorsOfNode.add(barrierPredecessors);
+            barrierIds.add("#barrier-" + stage);
+            for (Integer group : stages.get(stage)) {
+                for (Integer node : groupNodesList.get(group)) {
+                    // 全局模式下显式声明了依赖的任务不等待屏障
+                    if (!root[node] || (arrangeMode == ArrangeMode.GLOBAL && explicitDependency[node])) {
+                        continue;
+                    }
+                    predecessorsOfNode.get(node).add(barrier);
+                }
+            }
+        }
+
+        // 计算后继节点并做拓扑排序
+        int size = predecessorsOfNode.size();
+        List<List<Integer>> successorsOfNode = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            successorsOfNode.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            for (Integer predecessor : predecessorsOfNode.get(i)) {
+                successorsOfNode.get(predecessor).add(i);
+            }
+        }
+        int[] topologicalOrder = topologicalSort(predecessorsOfNode, successorsOfNode);
+
+        PlanNode[] nodes = new PlanNode[size];
+        for (Map.Entry<String, Integer> entry : nodeIndexMap.entrySet()) {
+            String taskId = entry.getKey();
+            int index = entry.getValue();
+            TaskDetail taskDetail = taskDetailsMap.get(taskId);
+            if (taskDetail == null) {
+                log.error("there is no task detail for taskId={}", taskId);
+                throw new IllegalTaskConfigException("任务详情不存在: " + taskId);
+            }
+            checkConcurrencyLimit(taskId, taskDetail);
+            checkRateLimit(taskId, taskDetail);
+            checkCircuitBreaker(taskId, taskDetail);
+            checkHedge(taskId, taskDetail);
+            checkResultCache(taskId, taskDetail);
+            checkBatch(taskId, taskDetail);
+            Map<String, Object> params = taskDetail.getParams() == null ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new HashMap<>(taskDetail.getParams()));
+            nodes[index] = new PlanNode(index, taskId, groupOfNode.get(index), taskDetail,
+                    resolveTaskClass(taskId, taskDetail.getFullClassName()), resolveRetryStrategy(taskId, taskDetail),
+                    params,
+                    toArray(predecessorsOfNode.get(index)), toArray(successorsOfNode.get(index)));
+        }
+        for (int index = taskCount; index < size; index++) {
+            nodes[index] = PlanNode.barrier(index, barrierIds.get(index - taskCount),
+                    toArray(predecessorsOfNode.get(index)), toArray(successorsOfNode.get(index)));
+        }
+
+        // 按拓扑序整理每个编排组内的节点
+        int[][] groups = new int[arrange.size()][];
+        int[] groupCursor = new int[arrange.size()];
+        for (int g = 0; g < groups.length; g++) {
+            groups[g] = new int[groupNodesList.get(g).size()];
+        }
+        for (int index : topologicalOrder) {
+            if (index < taskCount) {
+                int g = groupOfNode.get(index);
+                groups[g][groupCursor[g]++] = index;
+            }
+        }
+
+        return new ExecutionPlan(taskConfig.getArrangeName(), taskConfig.getVersion(), arrangeMode, nodes,
+                groups, topologicalOrder, nodeIndexMap);
+    }
+
+    /**
+     * 添加节点，已存在时返回已有节点下标
+     */
+    private static int addNode(String taskId, int groupIndex, Map<String, Integer> nodeIndexMap,
+                               List<Integer> groupOfNode, List<Set<Integer>> predecessorsOfNode,
+                               List<Integer> groupNodes) {
+        Integer index = nodeIndexMap.get(taskId);
+        if (index != null) {
+            if (groupOfNode.get(index) != groupIndex) {
+                throw new IllegalTaskConfigException("任务不能出现在多个编排组中: " + taskId);
+            }
+            return index;
+        }
+        index = nodeIndexMap.size();
+        nodeIndexMap.put(taskId, index);
+        groupOfNode.add(groupIndex);
+        predecessorsOfNode.add(new LinkedHashSet<>());
+        groupNodes.add(index);
+        return index;
+    }
+
+    /**
+     * 添加依赖关系
+     */
+    private static void addDependency(int dependent, int dependency, String dependentTaskId,
+                                      List<Set<Integer>> predecessorsOfNode) {
+        if (dependent == dependency) {
+            throw new IllegalTaskConfigException("Task cannot depend on itself: " + dependentTaskId);
+        }
+        predecessorsOfNode.get(dependent).add(dependency);
+    }
+
+    /**
+     * 对全局 DAG 做拓扑排序，同时检测循环依赖
+     *
+     * @param predecessorsOfNode 节点的前置节点
+     * @param successorsOfNode   节点的后继节点
+     * @return 按拓扑序排列的节点下标
+     */
+    private static int[] topologicalSort(List<Set<Integer>> predecessorsOfNode,
+                                         List<List<Integer>> successorsOfNode) {
+        int size = predecessorsOfNode.size();
+        int[] inDegree = new int[size];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            inDegree[i] = predecessorsOfNode.get(i).size();
+            if (inDegree[i] == 0) {
+                ready.add(i);
+            }
+        }
+        int[] order = new int[size];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            order[count++] = node;
+            for (Integer successor : successorsOfNode.get(node)) {
+                if (--inDegree[successor] == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        // 存在无法排序的节点，说明有环
+        if (count != size) {
+            throw new IllegalTaskConfigException("检测到循环依赖！");
+        }
+        return order;
+    }
+
+    /**
+     * 解析任务类
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends AbstractTask<?>> resolveTaskClass(String taskId, String taskClassName) {
+        // 检查任务类名是否为空
+        if (StringUtils.isBlank(taskClassName)) {
+            log.error("there is no task class name for taskId={}.", taskId);
+            throw new HaiduException("无效taskClassName");
+        }
+        Class<?> taskClass;
+        try {
+            taskClass = Class.forName(taskClassName);
+        } catch (ClassNotFoundException e) {
+            log.error("task class not found, taskId={}, taskName={}", taskId, taskClassName, e);
+            throw new HaiduException(e);
+        }
+        if (!AbstractTask.class.isAssignableFrom(taskClass)) {
+            throw new HaiduException("任务类必须继承 AbstractTask: " + taskClassName);
+        }
+        return (Class<? extends AbstractTask<?>>) taskClass;
+    }
+
+    /**
+     * 解析重试策略，未配置自定义策略时使用指数退避策略
+     */
+    private static RetryStrategy resolveRetryStrategy(String taskId, TaskDetail taskDetail) {
+        String className = taskDetail.getRetryStrategy();
+        if (StringUtils.isBlank(className)) {
+            try {
+                return new ExponentialBackoffRetryStrategy(
+                        Optional.ofNullable(taskDetail.getRetryDelay())
+                                .orElse(ExponentialBackoffRetryStrategy.DEFAULT_INITIAL_DELAY_MILLIS),
+                        Optional.ofNullable(taskDetail.getMaxRetryDelay())
+                                .orElse(ExponentialBackoffRetryStrategy.DEFAULT_MAX_DELAY_MILLIS));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalTaskConfigException("重试等待时间配置非法: " + taskId, e);
+            }
+        }
+        try {
+            Class<?> strategyClass = Class.forName(className);
+            if (!RetryStrategy.class.isAssignableFrom(strategyClass)) {
+                throw new HaiduException("重试策略必须实现 RetryStrategy: " + className);
+            }
+            return (RetryStrategy) strategyClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            log.error("retry strategy instantiation error, taskId={}, retryStrategy={}", taskId, className, e);
+            throw new HaiduException(e);
+        }
+    }
+
+    /**
+     * 检查自适应并发限制配置
+     */
+    private static void checkConcurrencyLimit(String taskId, TaskDetail taskDetail) {
+        String algorithm = StringUtils.trimToNull(taskDetail.getConcurrencyLimit());
+        if (algorithm != null && !ConcurrencyLimiter.isSupported(algorithm)) {
+            throw new IllegalTaskConfigException("不支持的并发限制算法: " + taskId + " -> " + algorithm);
+        }
+        if (taskDetail.getMaxConcurrency() != null && taskDetail.getMaxConcurrency() < 1) {
+            throw new IllegalTaskConfigException("并发上限配置非法: " + taskId);
+        }
+    }
+
+    /**
+     * 检查限流配置
+     */
+    private static void checkRateLimit(String taskId, TaskDetail taskDetail) {
+        Double rateLimit = taskDetail.getRateLimit();
+        if (rateLimit != null && !(rateLimit > 0)) {
+            throw new IllegalTaskConfigException("限流速率必须大于 0: " + taskId);
+        }
+        if (taskDetail.getRateLimitBurst() != null && taskDetail.getRateLimitBurst() < 1) {
+            throw new IllegalTaskConfigException("限流突发容量配置非法: " + taskId);
+        }
+        if (taskDetail.getRateLimitWait() != null && taskDetail.getRateLimitWait() < 0) {
+            throw new IllegalTaskConfigException("限流等待时间配置非法: " + taskId);
+        }
+    }
+
+    /**
+     * 检查熔断配置
+     */
+    private static void checkCircuitBreaker(String taskId, TaskDetail taskDetail) {
+        Integer threshold = taskDetail.getFailureRateThreshold();
+        if (threshold != null && (threshold < 1 || threshold > 100)) {
+            throw new IllegalTaskConfigException("熔断失败率阈值必须在 1 到 100 之间: " + taskId);
+        }
+        if (taskDetail.getMinimumCalls() != null && taskDetail.getMinimumCalls() < 1) {
+            throw new IllegalTaskConfigException("熔断最少执行次数配置非法: " + taskId);
+        }
+        if (taskDetail.getBreakDuration() != null && taskDetail.getBreakDuration() <= 0) {
+            throw new IllegalTaskConfigException("熔断持续时间配置非法: " + taskId);
+        }
+    }
+
+    /**
+     * 检查对冲配置
+     */
+    private static void checkHedge(String taskId, TaskDetail taskDetail) {
+        Double percentile = taskDetail.getHedgePercentile();
+        if (percentile != null && !(percentile > 0 && percentile < 100)) {
+            throw new IllegalTaskConfigException("对冲分位数必须在 0 到 100 之间: " + taskId);
+        }
+    }
+
+    /**
+     * 检查结果缓存配置
+     */
+    private static void checkResultCache(String taskId, TaskDetail taskDetail) {
+        if (taskDetail.getCacheTtl() != null && taskDetail.getCacheTtl() <= 0) {
+            throw new IllegalTaskConfigException("结果缓存有效时间必须大于 0: " + taskId);
+        }
+        if (taskDetail.getCacheMaxSize() != null && taskDetail.getCacheMaxSize() < 1) {
+            throw new IllegalTaskConfigException("结果缓存数量配置非法: " + taskId);
+        }
+        if (taskDetail.getCacheKeys() != null && taskDetail.getCacheKeys().stream().anyMatch(StringUtils::isBlank)) {
+            throw new IllegalTaskConfigException("结果缓存键的请求参数名称不能为空: " + taskId);
+        }
+    }
+
+    /**
+     * 检查批量任务配置
+     */
+    private static void checkBatch(String taskId, TaskDetail taskDetail) {
+        if (taskDetail.getMaxBatchSize() != null && taskDetail.getMaxBatchSize() < 1) {
+            throw new IllegalTaskConfigException("批量任务每批数量配置非法: " + taskId);
+        }
+        if (taskDetail.getBatchWindow() != null && taskDetail.getBatchWindow() <= 0) {
+            throw new IllegalTaskConfigException("批量任务收集窗口必须大于 0: " + taskId);
+        }
+    }
+
+    private static int[] toArray(Collection<Integer> indexes) {
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+}
@@ -0,0 +1,258 @@
+package com.oneinstep.haidu.plan;
+
+import com.oneinstep.haidu.breaker.CircuitBreaker;
+import com.oneinstep.haidu.cache.ResultCache;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.core.BatchingTask;
+import com.oneinstep.haidu.core.StatelessTask;
+import com.oneinstep.haidu.core.TaskFactories;
+import com.oneinstep.haidu.exception.HaiduException;
+import com.oneinstep.haidu.exception.RetryStrategy;
+import com.oneinstep.haidu.hedge.HedgePolicy;
+import com.oneinstep.haidu.limit.ConcurrencyLimiter;
+import com.oneinstep.haidu.limit.RateLimiter;
+import com.oneinstep.haidu.result.Result;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 执行计划中的任务节点，编译后不可变
+ * 依赖关系以节点下标数组的形式保存，执行时无需再做任何查找
+ */
+@Slf4j
+@Getter
+public final class PlanNode {
+
+    // 节点在执行计划中的下标
+    private final int index;
+    // 任务ID
+    private final String taskId;
+    // 所属编排组下标，屏障节点为 -1
+    private final int groupIndex;
+    // 是否为阶段之间的屏障节点，屏障节点没有任务，前置节点全部完成即完成
+    private final boolean barrier;
+    // 任务详情
+    private final TaskDetail taskDetail;
+    // 任务类
+    private final Class<? extends AbstractTask<?>> taskClass;
+    // 重试次数
+    private final Integer retries;
+    // 重试策略，同一节点的所有请求共享
+    private final RetryStrategy retryStrategy;
+    // 超时时间
+    private final Long timeout;
+    // 超时后是否中断执行任务的线程
+    private final boolean interruptOnTimeout;
+    // 执行任务的线程池名称，为 null 时使用默认线程池
+    private final String executor;
+    // 自适应并发限制算法，为 null 时不限制
+    private final String concurrencyLimit;
+    // 自适应并发上限的最大值
+    private final int maxConcurrency;
+    // 每秒允许执行的次数，为 0 时不限流
+    private final double rateLimit;
+    // 限流的突发容量
+    private final int rateLimitBurst;
+    // 令牌不足时最多等待的时间，纳秒
+    private final long rateLimitWait;
+    // 是否合并参数相同的并发调用
+    private final boolean coalesce;
+    // 结果缓存的有效时间，毫秒，为 0 时不缓存
+    private final long cacheTtl;
+    // 最多缓存的结果数量
+    private final int cacheMaxSize;
+    // 参与缓存键的请求参数名称（不可修改）
+    private final List<String> cacheKeys;
+    // 批量任务每批最多合并的调用数量
+    private final int maxBatchSize;
+    // 批量任务收集调用的窗口，毫秒
+    private final long batchWindow;
+    // 是否开启对冲
+    private final boolean hedge;
+    // 对冲延迟的分位数
+    private final double hedgePercentile;
+    // 是否开启熔断
+    private final boolean circuitBreaker;
+    // 熔断的失败率阈值，百分比
+    private final int failureRateThreshold;
+    // 计算失败率所需的最少执行次数
+    private final int minimumCalls;
+    // 熔断打开后持续的时间，毫秒
+    private final long breakDuration;
+    // 熔断打开时的降级结果，为 null 时节点失败
+    private final Result<Object> fallback;
+    // 编译期处理好的任务参数（不可修改）
+    private final Map<String, Object> params;
+
+    // 前置节点下标
+    @Getter(AccessLevel.NONE)
+    private final int[] predecessors;
+    // 后继节点下标
+    @Getter(AccessLevel.NONE)
+    private final int[] successors;
+
+    // 任务工厂，编译期解析一次
+    @Getter(AccessLevel.NONE)
+    private final Supplier<AbstractTask<?>> factory;
+    // 无状态任务的共享实例
+    @Getter(AccessLevel.NONE)
+    private final AbstractTask<?> sharedTask;
+
+    PlanNode(int index, String taskId, int groupIndex, TaskDetail taskDetail,
+             Class<? extends AbstractTask<?>> taskClass, RetryStrategy retryStrategy, Map<String, Object> params,
+             int[] predecessors, int[] successors) {
+        this.index = index;
+        this.taskId = taskId;
+        this.groupIndex = groupIndex;
+        this.barrier = false;
+        this.taskDetail = taskDetail;
+        this.taskClass = taskClass;
+        this.retries = taskDetail.getRetries();
+        this.retryStrategy = retryStrategy;
+        this.timeout = taskDetail.getTimeout();
+        this.interruptOnTimeout = Boolean.TRUE.equals(taskDetail.getInterruptOnTimeout());
+        this.executor = StringUtils.trimToNull(taskDetail.getExecutor());
+        this.concurrencyLimit = StringUtils.trimToNull(taskDetail.getConcurrencyLimit());
+        this.maxConcurrency = Optional.ofNullable(taskDetail.getMaxConcurrency())
+                .orElse(ConcurrencyLimiter.DEFAULT_MAX_CONCURRENCY);
+        this.rateLimit = Optional.ofNullable(taskDetail.getRateLimit()).orElse(0D);
+        this.rateLimitBurst = Optional.ofNullable(taskDetail.getRateLimitBurst())
+                .orElse(RateLimiter.defaultBurst(rateLimit));
+        this.rateLimitWait = TimeUnit.MILLISECONDS.toNanos(Optional.ofNullable(taskDetail.getRateLimitWait()).orElse(0L));
+        this.coalesce = Boolean.TRUE.equals(taskDetail.getCoalesce());
+        this.cacheTtl = Optional.ofNullable(taskDetail.getCacheTtl()).orElse(0L);
+        this.cacheMaxSize = Optional.ofNullable(taskDetail.getCacheMaxSize()).orElse(ResultCache.DEFAULT_MAX_SIZE);
+        this.cacheKeys = taskDetail.getCacheKeys() == null ? Collections.emptyList()
+                : List.copyOf(taskDetail.getCacheKeys());
+        this.maxBatchSize = Optional.ofNullable(taskDetail.getMaxBatchSize()).orElse(BatchingTask.DEFAULT_MAX_BATCH_SIZE);
+        this.batchWindow = Optional.ofNullable(taskDetail.getBatchWindow()).orElse(BatchingTask.DEFAULT_BATCH_WINDOW);
+        this.hedge = Boolean.TRUE.equals(taskDetail.getHedge());
+        this.hedgePercentile = Optional.ofNullable(taskDetail.getHedgePercentile()).orElse(HedgePolicy.DEFAULT_PERCENTILE);
+        this.circuitBreaker = Boolean.TRUE.equals(taskDetail.getCircuitBreaker());
+        this.failureRateThreshold = Optional.ofNullable(taskDetail.getFailureRateThreshold())
+                .orElse(CircuitBreaker.DEFAULT_FAILURE_RATE_THRESHOLD);
+        this.minimumCalls = Optional.ofNullable(taskDetail.getMinimumCalls())
+                .orElse(CircuitBreaker.DEFAULT_MINIMUM_CALLS);
+        this.breakDuration = Optional.ofNullable(taskDetail.getBreakDuration())
+                .orElse(CircuitBreaker.DEFAULT_BREAK_DURATION);
+        this.fallback = taskDetail.getFallback();
+        this.params = params;
+        this.predecessors = predecessors;
+        this.successors = successors;
+        this.factory = TaskFactories.getFactory(taskClass);
+        this.sharedTask = taskClass.isAnnotationPresent(StatelessTask.class) ? newTask() : null;
+    }
+
+    private PlanNode(int index, String barrierId, int[] predecessors, int[] successors) {
+        this.index = index;
+        this.taskId = barrierId;
+        this.groupIndex = -1;
+        this.barrier = true;
+        this.taskDetail = null;
+        this.taskClass = null;
+        this.retries = null;
+        this.retryStrategy = null;
+        this.timeout = null;
+        this.interruptOnTimeout = false;
+        this.executor = null;
+        this.concurrencyLimit = null;
+        this.maxConcurrency = 0;
+        this.rateLimit = 0;
+        this.rateLimitBurst = 0;
+        this.rateLimitWait = 0;
+        this.coalesce = false;
+        this.cacheTtl = 0;
+        this.cacheMaxSize = 0;
+        this.cacheKeys = Collections.emptyList();
+        this.maxBatchSize = 0;
+        this.batchWindow = 0;
+        this.hedge = false;
+        this.hedgePercentile = 0;
+        this.circuitBreaker = false;
+        this.failureRateThreshold = 0;
+        this.minimumCalls = 0;
+        this.breakDuration = 0;
+        this.fallback = null;
+        this.params = Collections.emptyMap();
+        this.predecessors = predecessors;
+        this.successors = successors;
+        this.factory = null;
+        this.sharedTask = null;
+    }
+
+    /**
+     * 创建屏障节点
+     *
+     * @param index        节点下标
+     * @param barrierId    屏障ID
+     * @param predecessors 前置节点下标
+     * @param successors   后继节点下标
+     * @return 屏障节点
+     */
+    static PlanNode barrier(int index, String barrierId, int[] predecessors, int[] successors) {
+        return new PlanNode(index, barrierId, predecessors, successors);
+    }
+
+    /**
+     * 前置节点下标，返回内部数组，调用方不得修改
+     *
+     * @return 前置节点下标
+     */
+    public int[] predecessors() {
+        return predecessors;
+    }
+
+    /**
+     * 后继节点下标，返回内部数组，调用方不得修改
+     *
+     * @return 后继节点下标
+     */
+    public int[] successors() {
+        return successors;
+    }
+
+    /**
+     * 获取任务实例
+     * 无状态任务返回本执行计划内共享的实例，其余任务每次创建新实例
+     *
+     * @return 任务实例
+     */
+    public AbstractTask<?> getTaskInstance() {
+        if (barrier) {
+            throw new IllegalStateException("barrier node has no task: " + taskId);
+        }
+        return sharedTask != null ? sharedTask : newTask();
+    }
+
+    /**
+     * 创建一个新的任务实例，并写入该节点的配置
+     *
+     * @return 任务实例
+     */
+    private AbstractTask<?> newTask() {
+        try {
+            AbstractTask<?> task = factory.get();
+            task.setTaskId(taskId);
+            task.setRetryTimes(retries);
+            task.setTimeout(timeout);
+            // 有状态任务执行时会就地替换 CONTEXT 参数，因此每个实例持有独立的副本
+            task.setParams(task.isStateless() ? params : new HashMap<>(params));
+            return task;
+        } catch (Exception e) {
+            log.error("Instantiation Exception during taskId={}, taskName={}", taskId, taskClass.getName(), e);
+            throw new HaiduException(e);
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.InlineExecutor;
+import com.oneinstep.haidu.exception.FlowRejectedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 过载时切换为后进先出、按排队时间拒绝新任务流的调度策略
+ * <p>
+ * 就绪节点放入线程池对应的双端队列，每个线程池最多同时提交 concurrency 个取任务的执行单元，
+ * 线程池自身的队列不会被填满，已开始的任务流不会因线程池拒绝而在中途失败。
+ * <p>
+ * 过载按 CoDel 的方式判断：队列中最早的节点排队时间持续一个 interval 都高于 target 时视为过载，队列排空或排队时间回落后恢复。
+ * 过载期间执行单元从队尾取节点（后进先出），刚就绪的节点不被积压的旧节点拖慢；新的任务流在 {@link #admit} 时
+ * 以 {@link FlowRejectedException} 整体拒绝，不执行任何任务，积压由已接收的任务流逐步消化。
+ * <p>
+ * INLINE 节点不排队，直接在就绪的线程上执行，不会被其他请求的执行单元取走。
+ */
+@Slf4j
+public final class CoDelTaskScheduler implements TaskScheduler {
+
+    // 排队时间目标，毫秒
+    public static final long DEFAULT_TARGET_MILLIS = 5;
+    // 排队时间持续高于目标多久视为过载，毫秒
+    public static final long DEFAULT_INTERVAL_MILLIS = 100;
+    // 每个线程池同时执行的节点数量，与默认平台线程池的线程数一致
+    public static final int DEFAULT_CONCURRENCY = 100;
+
+    // 线程池 -> 就绪节点队列
+    private final Map<Executor, Lane> lanes = new ConcurrentHashMap<>();
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final int concurrency;
+
+    public CoDelTaskScheduler() {
+        this(DEFAULT_TARGET_MILLIS, DEFAULT_INTERVAL_MILLIS, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param targetMillis   排队时间目标，毫秒
+     * @param intervalMillis 排队时间持续高于目标多久视为过载，毫秒
+     * @param concurrency    每个线程池同时执行的节点数量，不应超过线程池的线程数与队列容量之和
+     */
+    public CoDelTaskScheduler(long targetMillis, long intervalMillis, int concurrency) {
+        if (targetMillis <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("target and interval must be greater than 0");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be greater than 0: " + concurrency);
+        }
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void admit(RequestContext context, Collection<Executor> executors) {
+        long now = System.nanoTime();
+        for (Executor executor : executors) {
+            Lane lane = lanes.get(executor);
+            if (lane != null && lane.isOverloaded(now)) {
+                String arrangeName = context.getTaskConfig().getArrangeName();
+                log.warn("flow rejected, executor is overloaded, arrangeName:{}", arrangeName);
+                throw new FlowRejectedException(arrangeName, FlowRejectedException.Reason.OVERLOADED,
+                        "任务流被拒绝: 线程池排队时间持续超过 " + TimeUnit.NANOSECONDS.toMillis(targetNanos) + "ms");
+            }
+        }
+    }
+
+    @Override
+    public void schedule(ReadyTask task, Executor executor) {
+        if (executor == InlineExecutor.INSTANCE) {
+            executor.execute(task);
+            return;
+        }
+        lanes.computeIfAbsent(executor, Lane::new).offer(task);
+    }
+
+    /**
+     * 线程池当前是否过载
+     *
+     * @param executor 线程池
+     * @return 是否过载，从未调度过节点的线程池返回 false
+     */
+    public boolean isOverloaded(Executor executor) {
+        Lane lane = lanes.get(executor);
+        return lane != null && lane.isOverloaded(System.nanoTime());
+    }
+
+    /**
+     * 一个线程池的就绪节点队列
+     */
+    private final class Lane {
+
+        private final Executor executor;
+        private final ConcurrentLinkedDeque<Entry> queue = new ConcurrentLinkedDeque<>();
+        // 已提交尚未退出的执行单元数量
+        private final AtomicInteger drainers = new AtomicInteger();
+        // 排队时间首次高于目标后再过一个 interval 的时刻，0 表示排队时间低于目标
+        private volatile long firstAboveTime;
+        private volatile boolean overloaded;
+
+        private Lane(Executor executor) {
+            this.executor = executor;
+        }
+
+        void offer(ReadyTask task) {
+            Entry entry = new Entry(task, System.nanoTime());
+            queue.addLast(entry);
+            // 执行单元已满时由正在运行的执行单元取走
+            if (!tryAcquire()) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 没有其他执行单元时节点无法执行，交由引擎按失败处理
+                if (drainers.decrementAndGet() == 0 && queue.removeLastOccurrence(entry)) {
+                    throw e;
+                }
+            }
+        }
+
+        private boolean tryAcquire() {
+            int current;
+            do {
+                current = drainers.get();
+                if (current >= concurrency) {
+                    return false;
+                }
+            } while (!drainers.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Entry entry = overloaded ? queue.pollLast() : queue.pollFirst();
+                if (entry == null) {
+                    firstAboveTime = 0;
+                    overloaded = false;
+                    drainers.decrementAndGet();
+                    // 退出前再次检查，避免与 offer 竞争导致节点无人执行
+                    if (queue.isEmpty() || !tryAcquire()) {
+                        return;
+                    }
+                    continue;
+                }
+                observe(System.nanoTime());
+                try {
+                    entry.task.run();
+                } catch (RuntimeException e) {
+                    log.error("taskId:{} run error.", entry.task.getTaskId(), e);
+                }
+            }
+        }
+
+        /**
+         * 按队列中最早节点的排队时间更新过载状态
+         */
+        private void observe(long now) {
+            Entry head = queue.peekFirst();
+            if (head == null || now - head.enqueueTime < targetNanos) {
+                firstAboveTime = 0;
+                overloaded = false;
+            } else if (firstAboveTime == 0) {
+                firstAboveTime = now + intervalNanos;
+            } else if (now - firstAboveTime >= 0) {
+                overloaded = true;
+            }
+        }
+
+        boolean isOverloaded(long now) {
+            if (overloaded) {
+                return true;
+            }
+            // 所有线程长时间被占用时没有出队，也就没有更新状态
+            Entry head = queue.peekFirst();
+            return head != null && now - head.enqueueTime > intervalNanos;
+        }
+    }
+
+    private static final class Entry {
+
+        private final ReadyTask task;
+        // 入队时刻，纳秒
+        private final long enqueueTime;
+
+        private Entry(ReadyTask task, long enqueueTime) {
+            this.task = task;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.google.common.cache.CacheBuilder;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.PlanNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 关键路径优先的调度策略
+ * <p>
+ * 按任务的历史耗时（指数加权平均）计算每个节点到任务流结束的最长剩余路径，线程池繁忙时优先执行剩余路径最长的节点，
+ * 让关键路径上的任务尽早开始，从而缩短整个任务流的耗时。没有历史耗时的任务按默认耗时估算，屏障节点耗时为 0。
+ * <p>
+ * 多个任务流同时排队时，节点按最晚开始时刻排序：截止时刻 - 节点剩余路径，请求没有截止时间时截止时刻取任务流开始时刻 + 关键路径长度。
+ * 同一任务流内等价于剩余路径最长者优先；不同任务流之间先到截止时刻的任务流优先，避免所有任务流的关键路径交错执行、一起变慢。
+ * <p>
+ * 剩余路径按执行计划缓存，每隔一段时间按最新的历史耗时重新计算；历史耗时按任务ID统计，不同编排中的同名任务共享统计。
+ * 读取缓存不加锁，到期后只有一个线程重新计算，其他线程在此期间继续使用旧的剩余路径。
+ */
+public final class CriticalPathTaskScheduler extends PriorityTaskScheduler {
+
+    // 没有历史耗时的任务的默认耗时，毫秒
+    public static final long DEFAULT_ESTIMATE_MILLIS = 1;
+    // 剩余路径重新计算的间隔，毫秒
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 1000;
+
+    // 任务ID -> 历史耗时的指数加权平均，纳秒
+    private final Map<String, AtomicLong> durations = new ConcurrentHashMap<>();
+    // 执行计划 -> 各节点的剩余路径，weakKeys 使用 == 比较 key，执行计划失效后随之回收
+    private final ConcurrentMap<ExecutionPlan, RankCache> ranks = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<ExecutionPlan, RankCache>build()
+            .asMap();
+    private final long defaultEstimateNanos;
+    private final long refreshIntervalNanos;
+
+    public CriticalPathTaskScheduler() {
+        this(DEFAULT_ESTIMATE_MILLIS, DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param defaultEstimateMillis  没有历史耗时的任务的默认耗时，毫秒
+     * @param refreshIntervalMillis 剩余路径重新计算的间隔，毫秒
+     */
+    public CriticalPathTaskScheduler(long defaultEstimateMillis, long refreshIntervalMillis) {
+        if (defaultEstimateMillis < 0) {
+            throw new IllegalArgumentException("defaultEstimateMillis must not be negative: " + defaultEstimateMillis);
+        }
+        if (refreshIntervalMillis < 0) {
+            throw new IllegalArgumentException("refreshIntervalMillis must not be negative: " + refreshIntervalMillis);
+        }
+        this.defaultEstimateNanos = TimeUnit.MILLISECONDS.toNanos(defaultEstimateMillis);
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+    }
+
+    @Override
+    public void onTaskComplete(String taskId, long duration) {
+        AtomicLong average = durations.computeIfAbsent(taskId, k -> new AtomicLong());
+        long current;
+        long next;
+        do {
+            current = average.get();
+            // 权重 1/8，与 TCP 的 RTT 估算相同
+            next = current == 0 ? Math.max(duration, 1) : current + (duration - current) / 8;
+        } while (!average.compareAndSet(current, next));
+    }
+
+    /**
+     * 获取任务的估算耗时
+     *
+     * @param taskId 任务ID
+     * @return 历史耗时的指数加权平均，没有历史耗时时为默认耗时，纳秒
+     */
+    public long getEstimate(String taskId) {
+        AtomicLong average = durations.get(taskId);
+        long estimate = average == null ? 0 : average.get();
+        return estimate == 0 ? defaultEstimateNanos : estimate;
+    }
+
+    /**
+     * 获取节点到任务流结束的最长剩余路径，包含节点自身的耗时
+     *
+     * @param plan  执行计划
+     * @param index 节点下标
+     * @return 剩余路径的估算耗时，纳秒
+     */
+    public long remainingPath(ExecutionPlan plan, int index) {
+        return ranks(plan).values[index];
+    }
+
+    /**
+     * 节点的最晚开始时刻，晚于该时刻开始将推迟整个任务流的完成
+     * 请求设置了截止时间时按截止时刻计算，否则以任务流开始时刻加关键路径长度作为截止时刻
+     */
+    @Override
+    protected long priority(ReadyTask task) {
+        Ranks cached = ranks(task.getPlan());
+        Long deadline = task.getContext().getDeadline();
+        long flowDeadline = deadline != null ? deadline : task.getFlowStartTime() + cached.criticalPath;
+        return flowDeadline - cached.values[task.getIndex()];
+    }
+
+    private Ranks ranks(ExecutionPlan plan) {
+        long now = System.nanoTime();
+        RankCache cache = ranks.get(plan);
+        if (cache == null) {
+            cache = ranks.computeIfAbsent(plan, k -> new RankCache(new Ranks(compute(k)), now + refreshIntervalNanos));
+        }
+        Ranks cached = cache.ranks;
+        long refreshAt = cache.refreshAt.get();
+        // 推进下一次计算时刻成功的线程负责重新计算
+        if (now - refreshAt > 0 && cache.refreshAt.compareAndSet(refreshAt, now + refreshIntervalNanos)) {
+            cached = new Ranks(compute(plan));
+            cache.ranks = cached;
+        }
+        return cached;
+    }
+
+    private long[] compute(ExecutionPlan plan) {
+        long[] values = new long[plan.size()];
+        int[] order = plan.getTopologicalOrder();
+        for (int i = order.length - 1; i >= 0; i--) {
+            PlanNode node = plan.getNode(order[i]);
+            long downstream = 0;
+            for (int successor : node.successors()) {
+                downstream = Math.max(downstream, values[successor]);
+            }
+            values[order[i]] = (node.isBarrier() ? 0 : getEstimate(node.getTaskId())) + downstream;
+        }
+        return values;
+    }
+
+    /**
+     * 一个执行计划的剩余路径缓存
+     */
+    private static final class RankCache {
+
+        private volatile Ranks ranks;
+        // 下一次重新计算的时刻，纳秒
+        private final AtomicLong refreshAt;
+
+        private RankCache(Ranks ranks, long refreshAt) {
+            this.ranks = ranks;
+            this.refreshAt = new AtomicLong(refreshAt);
+        }
+    }
+
+    private static final class Ranks {
+
+        private final long[] values;
+        // 关键路径长度，即所有节点剩余路径的最大值
+        private final long criticalPath;
+
+        private Ranks(long[] values) {
+            long max = 0;
+            for (long value : values) {
+                max = Math.max(max, value);
+            }
+            this.values = values;
+            this.criticalPath = max;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.oneinstep.haidu.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最早截止时间优先（EDF）的调度策略
+ * <p>
+ * 线程池繁忙时，截止时刻最早的请求的就绪节点先执行，接近 SLA 截止时间的请求不再排在新到达的请求之后。
+ * 截止时间通过 {@link com.oneinstep.haidu.context.RequestContext#setDeadlineAfter(long, TimeUnit)} 设置，
+ * 没有截止时间的请求以任务流开始时刻加默认截止时间参与排序，不会被有截止时间的请求无限期推迟。
+ */
+public final class EarliestDeadlineFirstTaskScheduler extends PriorityTaskScheduler {
+
+    // 没有截止时间的请求的默认截止时间，毫秒
+    public static final long DEFAULT_DEADLINE_MILLIS = 1000;
+
+    private final long defaultDeadlineNanos;
+
+    public EarliestDeadlineFirstTaskScheduler() {
+        this(DEFAULT_DEADLINE_MILLIS);
+    }
+
+    /**
+     * @param defaultDeadlineMillis 没有截止时间的请求的默认截止时间，从任务流开始时计算，毫秒
+     */
+    public EarliestDeadlineFirstTaskScheduler(long defaultDeadlineMillis) {
+        if (defaultDeadlineMillis < 0) {
+            throw new IllegalArgumentException("defaultDeadlineMillis must not be negative: " + defaultDeadlineMillis);
+        }
+        this.defaultDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(defaultDeadlineMillis);
+    }
+
+    @Override
+    protected long priority(ReadyTask task) {
+        Long deadline = task.getContext().getDeadline();
+        return deadline != null ? deadline : task.getFlowStartTime() + defaultDeadlineNanos;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.oneinstep.haidu.scheduler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 默认调度策略，节点就绪后直接提交到线程池，按线程池自身的队列顺序执行
+ */
+public final class FifoTaskScheduler implements TaskScheduler {
+
+    public static final FifoTaskScheduler INSTANCE = new FifoTaskScheduler();
+
+    private FifoTaskScheduler() {
+    }
+
+    @Override
+    public void schedule(ReadyTask task, Executor executor) {
+        executor.execute(task);
+    }
+
+}
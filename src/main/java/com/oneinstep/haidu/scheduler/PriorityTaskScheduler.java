@@ -0,0 +1,91 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.core.InlineExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按优先级调度就绪节点的基类，优先级值越小越先执行，相同时先就绪的节点先执行
+ * <p>
+ * 就绪节点先放入线程池对应的优先队列，再向线程池提交一个取任务的执行单元，执行单元运行时从队列中取出当前优先级最高的节点，
+ * 队列非空时继续执行，因此不会增加线程，也不改变线程池的拒绝策略：提交被拒绝且节点仍在队列中时，节点从队列移除并抛出异常。
+ * 线程池空闲时节点几乎立即被取出，与直接提交的行为一致。
+ * <p>
+ * INLINE 节点不排队，直接在就绪的线程上执行，不会被其他请求的执行单元取走。
+ */
+@Slf4j
+public abstract class PriorityTaskScheduler implements TaskScheduler {
+
+    // 线程池 -> 就绪节点的优先队列
+    private final Map<Executor, PriorityBlockingQueue<Entry>> queues = new ConcurrentHashMap<>();
+    // 提交顺序
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 计算就绪节点的优先级
+     *
+     * @param task 就绪的节点
+     * @return 优先级，越小越先执行
+     */
+    protected abstract long priority(ReadyTask task);
+
+    @Override
+    public void schedule(ReadyTask task, Executor executor) {
+        if (executor == InlineExecutor.INSTANCE) {
+            executor.execute(task);
+            return;
+        }
+        PriorityBlockingQueue<Entry> queue = queues.computeIfAbsent(executor, k -> new PriorityBlockingQueue<>());
+        Entry entry = new Entry(task, priority(task), sequence.getAndIncrement());
+        queue.add(entry);
+        try {
+            executor.execute(() -> drain(queue));
+        } catch (RejectedExecutionException e) {
+            // 节点已被其他执行单元取走时会正常执行
+            if (queue.remove(entry)) {
+                throw e;
+            }
+        }
+    }
+
+    private static void drain(PriorityBlockingQueue<Entry> queue) {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            try {
+                entry.task.run();
+            } catch (RuntimeException e) {
+                log.error("taskId:{} run error.", entry.task.getTaskId(), e);
+            }
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final ReadyTask task;
+        private final long priority;
+        private final long sequence;
+
+        private Entry(ReadyTask task, long priority, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            // 优先级为 nanoTime 基准的时刻，可能溢出，按差值比较
+            long diff = priority - other.priority;
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.PlanNode;
+import lombok.Getter;
+
+/**
+ * 依赖已全部完成、等待进入线程池的节点
+ */
+@Getter
+public final class ReadyTask implements Runnable {
+
+    // 执行计划
+    private final ExecutionPlan plan;
+    // 节点下标
+    private final int index;
+    // 请求上下文
+    private final RequestContext context;
+    // 任务流开始执行的时刻，纳秒
+    private final long flowStartTime;
+    // 执行节点的任务
+    private final Runnable command;
+
+    public ReadyTask(ExecutionPlan plan, int index, RequestContext context, long flowStartTime, Runnable command) {
+        this.plan = plan;
+        this.index = index;
+        this.context = context;
+        this.flowStartTime = flowStartTime;
+        this.command = command;
+    }
+
+    public PlanNode getNode() {
+        return plan.getNode(index);
+    }
+
+    public String getTaskId() {
+        return plan.getNode(index).getTaskId();
+    }
+
+    @Override
+    public void run() {
+        command.run();
+    }
+
+}
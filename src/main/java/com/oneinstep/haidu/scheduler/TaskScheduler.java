@@ -1,9 +1,44 @@
 package com.oneinstep.haidu.scheduler;
 
 import com.oneinstep.haidu.context.RequestContext;
-import com.oneinstep.haidu.core.AbstractTask;
 
-// 支持自定义任务调度策略
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+/**
+ * 任务调度策略，决定依赖已全部完成的节点以什么顺序进入线程池
+ * <p>
+ * 引擎在节点就绪（包括重试）时调用 {@link #schedule(ReadyTask, Executor)}，调度器必须保证每个节点最终被执行一次，
+ * 或者在提交时抛出 {@link java.util.concurrent.RejectedExecutionException} 交由引擎按失败处理。
+ * 同一个调度器被引擎的所有请求并发调用，实现必须线程安全。
+ */
 public interface TaskScheduler {
-    void schedule(AbstractTask<?> task, RequestContext context);
-}
\ No newline at end of file
+
+    /**
+     * 任务流开始执行前调用，调度器过载时可以拒绝整个任务流，避免任务流执行到一半时失败
+     *
+     * @param context   请求上下文
+     * @param executors 任务流的节点使用的线程池
+     * @throws com.oneinstep.haidu.exception.FlowRejectedException 拒绝任务流
+     */
+    default void admit(RequestContext context, Collection<Executor> executors) {
+    }
+
+    /**
+     * 调度就绪的节点
+     *
+     * @param task     就绪的节点
+     * @param executor 节点配置的线程池
+     */
+    void schedule(ReadyTask task, Executor executor);
+
+    /**
+     * 节点成功完成，可用于积累任务耗时
+     *
+     * @param taskId   任务ID
+     * @param duration 执行耗时，纳秒
+     */
+    default void onTaskComplete(String taskId, long duration) {
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.oneinstep.haidu.admission;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.FlowRejectedException;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.SleepTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.oneinstep.haidu.admission.DeadlineAdmissionController.DEFAULT_DEGRADE_RATIO;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineAdmissionControllerTest {
+
+    private final TaskConfig taskConfig = config();
+    private final ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+    @Test
+    void shouldAdmitDegradeOrRejectByPredictedLatency() {
+        DeadlineAdmissionController controller = new DeadlineAdmissionController();
+        controller.admit(plan, context(null));
+        controller.onFlowComplete(plan, null, ms(100), null);
+
+        FlowRejectedException e = assertThrows(FlowRejectedException.class,
+                () -> controller.admit(plan, context(50L)));
+        assertEquals(FlowRejectedException.Reason.DEADLINE, e.getReason());
+        assertEquals("admission", e.getArrangeName());
+        // 被拒绝的任务流不计入执行中的数量
+        assertEquals(0, controller.getInFlight());
+
+        assertEquals(AdmissionDecision.DEGRADE, controller.admit(plan, context(80L)));
+        // 2 个任务流执行中，预计耗时 300ms
+        assertEquals(AdmissionDecision.ADMIT, controller.admit(plan, context(400L)));
+        assertEquals(2, controller.getInFlight());
+    }
+
+    @Test
+    void shouldScalePredictionWithFlowsInFlight() {
+        DeadlineAdmissionController controller = new DeadlineAdmissionController();
+        controller.admit(plan, context(null));
+        controller.onFlowComplete(plan, null, ms(100), null);
+
+        assertEquals(ms(100), controller.predict(plan, 1));
+        assertEquals(ms(300), controller.predict(plan, 3));
+        // 排队时间作为下限
+        controller.onTaskQueued("a", ms(500));
+        assertEquals(ms(500), controller.predict(plan, 1));
+    }
+
+    @Test
+    void shouldIgnoreFailedFlowsInLatency() {
+        DeadlineAdmissionController controller = new DeadlineAdmissionController();
+        controller.admit(plan, context(null));
+        controller.onFlowComplete(plan, null, ms(100), new RuntimeException());
+
+        assertEquals(0, controller.predict(plan, 1));
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    void shouldRejectBeyondMaxInFlight() {
+        DeadlineAdmissionController controller = new DeadlineAdmissionController(1, 1);
+        controller.admit(plan, context(null));
+
+        FlowRejectedException e = assertThrows(FlowRejectedException.class,
+                () -> controller.admit(plan, context(null)));
+        assertEquals(FlowRejectedException.Reason.CONCURRENCY, e.getReason());
+    }
+
+    @Test
+    void shouldRejectFlowBeforeAnyTaskRuns() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DeadlineAdmissionController controller = new DeadlineAdmissionController();
+        TaskEngine engine = TaskEngine.builder().name("admission").executor(executor)
+                .admissionController(controller).build();
+        // 在另一个引擎上预热，避免类加载的耗时计入统计
+        TaskEngine warmUp = TaskEngine.builder().name("warm-up").executor(executor).build();
+        warmUp.startEngine(context(null));
+        warmUp.shutdown();
+        try {
+            engine.startEngine(context(null));
+            assertEquals(0, controller.getInFlight());
+
+            RequestContext tight = context(5L);
+            assertThrows(FlowRejectedException.class, () -> engine.startEngine(tight));
+            assertTrue(tight.getTaskResultMap().isEmpty());
+
+            // 预计耗时约 50ms，剩余 45ms 时降级执行
+            RequestContext degraded = context(45L);
+            engine.startEngineAsync(degraded).get(5, TimeUnit.SECONDS);
+            assertTrue(degraded.isDegraded());
+            assertNotNull(degraded.getTaskResultMap().get("a"));
+            assertEquals(0, controller.getInFlight());
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepStatsPerPlanWithoutArrangeName() throws Exception {
+        TaskConfig unnamed = config();
+        unnamed.setArrangeName(null);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DeadlineAdmissionController controller = new DeadlineAdmissionController(1, DEFAULT_DEGRADE_RATIO);
+        TaskEngine engine = TaskEngine.builder().name("admission-unnamed").executor(executor)
+                .admissionController(controller).build();
+        try {
+            // 未设置编排名称时统计和计数都不受影响，执行中的数量不会泄漏到把后续任务流拒绝
+            for (int i = 0; i < 3; i++) {
+                RequestContext context = context(5000L);
+                context.setTaskConfig(unnamed);
+                engine.startEngineAsync(context).get(5, TimeUnit.SECONDS);
+                assertNotNull(context.getTaskResultMap().get("a"));
+                assertEquals(0, controller.getInFlight());
+            }
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepSeparateStatsForConfigsSharingArrangeName() {
+        ExecutionPlan other = ExecutionPlanCompiler.compile(config());
+        DeadlineAdmissionController controller = new DeadlineAdmissionController();
+        controller.admit(plan, context(null));
+        controller.onFlowComplete(plan, null, ms(100), null);
+
+        assertEquals(ms(100), controller.predict(plan, 1));
+        assertEquals(0, controller.predict(other, 1));
+    }
+
+    @Test
+    void shouldReleaseInFlightWhenPredictionRejects() {
+        TaskConfig unnamed = config();
+        unnamed.setArrangeName(null);
+        ExecutionPlan unnamedPlan = ExecutionPlanCompiler.compile(unnamed);
+        DeadlineAdmissionController controller = new DeadlineAdmissionController(1, 1);
+        controller.admit(unnamedPlan, context(null));
+        controller.onFlowComplete(unnamedPlan, null, ms(100), null);
+
+        FlowRejectedException e = assertThrows(FlowRejectedException.class,
+                () -> controller.admit(unnamedPlan, context(50L)));
+        assertEquals(FlowRejectedException.Reason.DEADLINE, e.getReason());
+        assertNull(e.getArrangeName());
+        assertEquals(0, controller.getInFlight());
+        assertEquals(AdmissionDecision.ADMIT, controller.admit(unnamedPlan, context(null)));
+    }
+
+    private RequestContext context(Long deadlineMillis) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        if (deadlineMillis != null) {
+            context.setDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS);
+        }
+        return context;
+    }
+
+    private static TaskConfig config() {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("a");
+        detail.setFullClassName(SleepTask.class.getName());
+        TaskParam sleep = new TaskParam();
+        sleep.setName("sleep");
+        sleep.setType(TaskParam.Type.LONG);
+        sleep.setValue("50");
+        detail.setTaskParams(List.of(sleep));
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("admission");
+        taskConfig.setArrangeRule(List.of(List.of("a")));
+        taskConfig.setTaskDetailsMap(Map.of("a", detail));
+        return taskConfig;
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.oneinstep.haidu.breaker;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.CircuitBreakerOpenException;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.monitor.TaskMonitor;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.result.Result;
+import com.oneinstep.haidu.task.FailTask;
+import com.oneinstep.haidu.task.ThreadNameTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldOpenWhenFailureRateExceedsThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("t1", 50, 10, 1000);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            breaker.onSuccess(now);
+            breaker.onFailure(now);
+            // 执行次数不足 minimumCalls 时不打开
+            if (i < 4) {
+                assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(now + 999 * MILLIS));
+    }
+
+    @Test
+    void shouldForgetFailuresOutsideTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker("t1", 50, 4, 1000);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure(now);
+        }
+        // 窗口滑过之后，之前的失败不再计入
+        long later = now + TimeUnit.SECONDS.toNanos(11);
+        breaker.onSuccess(later);
+        breaker.onSuccess(later);
+        breaker.onSuccess(later);
+        breaker.onFailure(later);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void shouldProbeInHalfOpenState() {
+        CircuitBreaker breaker = new CircuitBreaker("t1", 50, 1, 100);
+        long now = System.nanoTime();
+        breaker.onFailure(now);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // 持续时间过后放行三次探测
+        long probe = now + 100 * MILLIS;
+        assertTrue(breaker.tryAcquire(probe));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire(probe));
+        assertTrue(breaker.tryAcquire(probe));
+        assertFalse(breaker.tryAcquire(probe));
+
+        // 任意一次探测失败重新打开
+        breaker.onFailure(probe);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(probe + 99 * MILLIS));
+
+        long next = probe + 100 * MILLIS;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire(next));
+            breaker.onSuccess(next);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(next));
+    }
+
+    @Test
+    void shouldPeekAndReleaseProbes() {
+        CircuitBreaker breaker = new CircuitBreaker("t1", 50, 1, 100);
+        long now = System.nanoTime();
+        breaker.onFailure(now);
+        assertFalse(breaker.isCallPermitted(now + 99 * MILLIS));
+
+        long probe = now + 100 * MILLIS;
+        assertTrue(breaker.isCallPermitted(probe));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire(probe));
+        }
+        assertFalse(breaker.isCallPermitted(probe));
+        assertFalse(breaker.tryAcquire(probe));
+
+        // 没有执行的探测归还后可以再次获取
+        breaker.release();
+        assertTrue(breaker.isCallPermitted(probe));
+        assertTrue(breaker.tryAcquire(probe));
+        assertFalse(breaker.tryAcquire(probe));
+    }
+
+    @Test
+    void shouldNotSpendProbesOnCacheHits() throws Exception {
+        TaskEngine engine = TaskEngine.builder().name("breaker").executor(executor).build();
+        try {
+            TaskDetail read = detail("read", ThreadNameTask.class);
+            read.setCircuitBreaker(true);
+            read.setMinimumCalls(1);
+            read.setBreakDuration(50L);
+            read.setCacheTtl(60_000L);
+            TaskConfig taskConfig = config(List.of("read"), Map.of("read", read));
+            run(engine, taskConfig);
+
+            CircuitBreaker breaker = engine.getCircuitBreaker(taskConfig, "read");
+            breaker.onFailure();
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            Thread.sleep(60);
+
+            // 命中缓存的请求不执行任务，不占用半开状态的探测
+            for (int i = 0; i < 5; i++) {
+                assertNotNull(run(engine, taskConfig).getTaskResultMap().get("read"));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertTrue(breaker.tryAcquire());
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void shouldFastFailWithFallbackAndSkipRetriesWhenOpen() throws Exception {
+        CountingMonitor monitor = new CountingMonitor();
+        TaskEngine engine = TaskEngine.builder().name("breaker").executor(executor).monitor(monitor).build();
+        try {
+            TaskDetail down = detail("down", FailTask.class);
+            down.setRetries(3);
+            down.setRetryDelay(1L);
+            down.setCircuitBreaker(true);
+            down.setMinimumCalls(2);
+            down.setFallback(Result.success("fallback"));
+            TaskConfig taskConfig = config(List.of("down:after"), Map.of(
+                    "down", down,
+                    "after", detail("after", ThreadNameTask.class)));
+
+            // 第二次执行失败后熔断打开，剩余的重试不再执行
+            assertThrows(ExecutionException.class, () -> run(engine, taskConfig));
+            assertEquals(CircuitBreaker.State.OPEN, engine.getCircuitBreaker(taskConfig, "down").getState());
+            int started = monitor.started.get();
+
+            RequestContext context = run(engine, taskConfig);
+            assertEquals("fallback", context.getTaskResultMap().get("down").getData());
+            // 下游任务照常执行，熔断的任务没有开始执行
+            assertNotNull(context.getTaskResultMap().get("after"));
+            assertEquals(started + 1, monitor.started.get());
+
+            long begin = System.nanoTime();
+            run(engine, taskConfig);
+            long elapsed = System.nanoTime() - begin;
+            assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(50), "fast fail took " + elapsed + "ns");
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void shouldFailWithoutFallback() {
+        TaskEngine engine = TaskEngine.builder().name("breaker").executor(executor).build();
+        try {
+            TaskDetail down = detail("down", FailTask.class);
+            down.setCircuitBreaker(true);
+            down.setMinimumCalls(1);
+            TaskConfig taskConfig = config(List.of("down"), Map.of("down", down));
+
+            ExecutionException first = assertThrows(ExecutionException.class, () -> run(engine, taskConfig));
+            assertFalse(first.getCause() instanceof CircuitBreakerOpenException);
+            ExecutionException second = assertThrows(ExecutionException.class, () -> run(engine, taskConfig));
+            assertInstanceOf(CircuitBreakerOpenException.class, second.getCause());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidConfig() {
+        TaskDetail down = detail("down", FailTask.class);
+        down.setCircuitBreaker(true);
+        down.setFailureRateThreshold(0);
+        assertThrows(IllegalTaskConfigException.class,
+                () -> ExecutionPlanCompiler.compile(config(List.of("down"), Map.of("down", down))));
+    }
+
+    private static RequestContext run(TaskEngine engine, TaskConfig taskConfig) throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        return engine.startEngineAsync(context).get(10, TimeUnit.SECONDS);
+    }
+
+    private static TaskDetail detail(String taskId, Class<?> taskClass) {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId(taskId);
+        detail.setFullClassName(taskClass.getName());
+        return detail;
+    }
+
+    private static TaskConfig config(List<String> rules, Map<String, TaskDetail> details) {
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("breaker-test");
+        taskConfig.setArrangeRule(List.of(rules));
+        taskConfig.setTaskDetailsMap(details);
+        return taskConfig;
+    }
+
+    private static class CountingMonitor implements TaskMonitor {
+
+        private final AtomicInteger started = new AtomicInteger();
+
+        @Override
+        public void onTaskStart(String taskId) {
+            started.incrementAndGet();
+        }
+    }
+
+}
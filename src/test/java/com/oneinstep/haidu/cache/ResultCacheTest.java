@@ -0,0 +1,145 @@
+package com.oneinstep.haidu.cache;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.result.Result;
+import com.oneinstep.haidu.task.ProductConfigTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldKeepHotEntriesWhenScanned() {
+        // 容量 3，保护段 2
+        ResultCache cache = new ResultCache("config", 3, 1000);
+        Result<String> hot = Result.success("hot");
+        cache.put("a", hot);
+        assertSame(hot, cache.get("a"));
+
+        // 只访问一次的结果在试用段中互相淘汰，不会挤出已晋升的结果
+        for (int i = 0; i < 10; i++) {
+            cache.put("scan-" + i, Result.success("scan"));
+        }
+        assertSame(hot, cache.get("a"));
+        assertNull(cache.get("scan-0"));
+        assertNotNull(cache.get("scan-9"));
+        assertEquals(3, cache.size());
+        assertEquals(8, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void shouldDemoteProtectedEntriesNotHitAgain() {
+        // 容量 5，保护段 4
+        ResultCache cache = new ResultCache("config", 5, 1000);
+        for (int i = 0; i < 5; i++) {
+            cache.put("hot-" + i, Result.success("hot"));
+            cache.get("hot-" + i);
+        }
+        // 命中过的结果在淘汰时晋升，保护段满时最早晋升的 hot-0 降回试用段，new-0 被淘汰
+        cache.put("new-0", Result.success("new"));
+        // 降级后再次命中的 hot-0 重新晋升，之后没有再命中的 hot-1 降回试用段并被淘汰
+        cache.get("hot-0");
+        cache.put("new-1", Result.success("new"));
+        cache.put("new-2", Result.success("new"));
+
+        assertEquals(5, cache.size());
+        assertEquals(3, cache.getEvictions());
+        assertNotNull(cache.get("hot-0"));
+        assertNull(cache.get("hot-1"));
+        assertNotNull(cache.get("new-2"));
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        ResultCache cache = new ResultCache("config", 10, 100);
+        cache.put("a", Result.success("a"), 0);
+
+        assertNotNull(cache.get("a", 100 * MILLIS - 1));
+        assertNull(cache.get("a", 100 * MILLIS));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void shouldServeFlowsFromCacheByParamsAndRequestKeys() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        TaskEngine engine = TaskEngine.builder().name("cache").executor(executor).build();
+        ProductConfigTask.INVOCATIONS.set(0);
+        try {
+            TaskConfig taskConfig = config();
+            assertEquals("config-p1", run(engine, taskConfig, "p1", "t1"));
+            assertEquals("config-p1", run(engine, taskConfig, "p1", "t1"));
+            // 参与缓存键的请求参数不同时分别缓存
+            assertEquals("config-p1", run(engine, taskConfig, "p1", "t2"));
+            assertEquals("config-p2", run(engine, taskConfig, "p2", "t1"));
+            assertEquals("config-p2", run(engine, taskConfig, "p2", "t1"));
+
+            assertEquals(3, ProductConfigTask.INVOCATIONS.get());
+            ResultCache cache = engine.getResultCache(taskConfig, "config");
+            assertEquals(2, cache.getHits());
+            assertEquals(3, cache.getMisses());
+            assertEquals(3, cache.size());
+
+            // 另一个配置中的同名任务不读取这里缓存的结果
+            TaskConfig other = config();
+            assertEquals("config-p1", run(engine, other, "p1", "t1"));
+            assertEquals(4, ProductConfigTask.INVOCATIONS.get());
+            assertEquals(1, engine.getResultCache(other, "config").size());
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidTtl() {
+        TaskConfig taskConfig = config();
+        taskConfig.getTaskDetailsMap().get("config").setCacheTtl(0L);
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    private static String run(TaskEngine engine, TaskConfig taskConfig, String productId, String tenant) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        context.getRequestParam().put("productId", productId);
+        context.getRequestParam().put("tenant", tenant);
+        return (String) engine.startEngineAsync(context).join().getTaskResultMap().get("config").getData();
+    }
+
+    private static TaskConfig config() {
+        TaskParam productId = new TaskParam();
+        productId.setName("productId");
+        productId.setType(TaskParam.Type.CONTEXT);
+        productId.setValue("#(productId)#");
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("config");
+        detail.setFullClassName(ProductConfigTask.class.getName());
+        detail.setCacheTtl(60000L);
+        detail.setCacheKeys(List.of("tenant"));
+        detail.setTaskParams(List.of(productId));
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("cache");
+        taskConfig.setArrangeRule(List.of(List.of("config")));
+        taskConfig.setTaskDetailsMap(Map.of("config", detail));
+        return taskConfig;
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.AsyncDelayTask;
+import com.oneinstep.haidu.task.NoopTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.oneinstep.haidu.core.DagExecutionTest.config;
+import static com.oneinstep.haidu.core.DagExecutionTest.detail;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAbstractTaskTest {
+
+    private ExecutorService executor;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // 只有一个任务线程，异步任务等待期间不能占用它
+        executor = Executors.newSingleThreadExecutor();
+        engine = TaskEngine.builder().name("async-test").executor(executor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldNotHoldThreadsWhileWaiting() throws Exception {
+        int width = 20;
+        List<String> rules = new ArrayList<>();
+        Map<String, TaskDetail> details = new HashMap<>();
+        for (int i = 0; i < width; i++) {
+            rules.add("a" + i + ":sink");
+            details.put("a" + i, asyncDetail("a" + i, 200));
+        }
+        details.put("sink", detail("sink", NoopTask.class));
+
+        long start = System.nanoTime();
+        RequestContext context = run(config(rules, details));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 同步执行需要 20 * 200ms，异步调用并发等待
+        assertTrue(elapsedMillis < 2000, "elapsed " + elapsedMillis);
+        assertEquals(width + 1, context.getTaskResultMap().size());
+        assertEquals(true, context.getRequestParam().get("a0.afterInvoke"));
+    }
+
+    @Test
+    void shouldRetryFailedAsyncInvocation() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail async = asyncDetail("async", 20);
+        async.setRetries(2);
+        async.setRetryDelay(10L);
+        async.setParams(Map.of("delay", 20, "failures", 2));
+        details.put("async", async);
+
+        RequestContext context = run(config(List.of("async"), details));
+
+        assertNotNull(context.getTaskResultMap().get("async"));
+    }
+
+    @Test
+    void shouldCancelAsyncInvocationOnTimeout() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail async = asyncDetail("async", 5000);
+        async.setTimeout(100L);
+        async.setInterruptOnTimeout(true);
+        details.put("async", async);
+        details.put("next", detail("next", NoopTask.class));
+
+        long start = System.nanoTime();
+        RequestContext context = run(config(List.of("async:next"), details));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertFalse(context.getTaskResultMap().containsKey("async"));
+        assertTrue(context.getTaskResultMap().containsKey("next"));
+        assertEquals(true, context.getRequestParam().get("async.cancel"));
+        assertEquals(true, context.getRequestParam().get("async.cancelled"));
+    }
+
+    @Test
+    void shouldBlockWhenAcceptedDirectly() {
+        AsyncDelayTask task = new AsyncDelayTask();
+        task.setTaskId("async");
+        task.setParams(new HashMap<>(Map.of("delay", 10)));
+        RequestContext context = new RequestContext();
+
+        task.accept(context);
+
+        assertNotNull(context.getTaskResultMap().get("async"));
+    }
+
+    private RequestContext run(TaskConfig taskConfig) throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+        return new DagExecution(plan, context, engine).start().get(10, TimeUnit.SECONDS);
+    }
+
+    private static TaskDetail asyncDetail(String taskId, int delay) {
+        TaskDetail detail = detail(taskId, AsyncDelayTask.class);
+        detail.setParams(Map.of("delay", delay));
+        return detail;
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.result.Result;
+import com.oneinstep.haidu.task.AccountLookupTask;
+import com.oneinstep.haidu.task.UserLookupTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingTaskTest {
+
+    private ExecutorService executor;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        engine = TaskEngine.builder().name("batch").executor(executor).build();
+        UserLookupTask.BATCH_SIZES.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldBatchConcurrentFlowsAndScatterResults() {
+        TaskConfig taskConfig = config(100, 50L);
+        List<CompletableFuture<RequestContext>> flows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            flows.add(run(taskConfig, "u" + (i % 10)));
+        }
+        for (int i = 0; i < flows.size(); i++) {
+            Result<?> result = flows.get(i).join().getTaskResultMap().get("user");
+            assertEquals("user-u" + (i % 10), result.getData());
+        }
+
+        BatchLoader<?, ?> loader = engine.getBatchLoader(taskConfig, "user");
+        assertEquals(50, loader.getLoads());
+        assertTrue(loader.getBatches() <= 5, "batches: " + loader.getBatches());
+        // 同一批次中相同的键只查询一次
+        assertTrue(UserLookupTask.BATCH_SIZES.stream().allMatch(size -> size <= 10));
+    }
+
+    @Test
+    void shouldDispatchWhenBatchIsFull() {
+        TaskConfig taskConfig = config(4, 5000L);
+        long begin = System.nanoTime();
+        List<CompletableFuture<RequestContext>> flows = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            flows.add(run(taskConfig, "u" + i));
+        }
+        flows.forEach(CompletableFuture::join);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        // 达到批量上限时不等待窗口到期
+        assertTrue(elapsed < 2000, "elapsed " + elapsed + "ms");
+        assertEquals(List.of(4, 4), UserLookupTask.BATCH_SIZES);
+    }
+
+    @Test
+    void shouldFailAllFlowsInFailedBatch() {
+        TaskConfig taskConfig = config(2, 5000L);
+        CompletableFuture<RequestContext> ok = run(taskConfig, "u1");
+        CompletableFuture<RequestContext> error = run(taskConfig, "error");
+
+        assertThrows(CompletionException.class, ok::join);
+        assertThrows(CompletionException.class, error::join);
+        assertEquals(1, engine.getBatchLoader(taskConfig, "user").getBatches());
+    }
+
+    @Test
+    void shouldKeepSeparateLoadersForConfigsSharingTaskId() {
+        TaskConfig users = config(100, 50L);
+        TaskConfig accounts = config(100, 50L);
+        accounts.getTaskDetailsMap().get("user").setFullClassName(AccountLookupTask.class.getName());
+        List<CompletableFuture<RequestContext>> userFlows = new ArrayList<>();
+        List<CompletableFuture<RequestContext>> accountFlows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            userFlows.add(run(users, "u" + i));
+            accountFlows.add(run(accounts, "u" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("user-u" + i, userFlows.get(i).join().getTaskResultMap().get("user").getData());
+            assertEquals("account-u" + i, accountFlows.get(i).join().getTaskResultMap().get("user").getData());
+        }
+        assertNotSame(engine.getBatchLoader(users, "user"), engine.getBatchLoader(accounts, "user"));
+        assertEquals(10, engine.getBatchLoader(accounts, "user").getLoads());
+
+        // 配置版本变化后按新的批量上限创建
+        users.getTaskDetailsMap().get("user").setMaxBatchSize(1);
+        users.setVersion("2");
+        run(users, "u1").join();
+        assertEquals(1, engine.getBatchLoader(users, "user").getMaxBatchSize());
+    }
+
+    @Test
+    void shouldLoadSingleKeyWhenInvokedStandalone() {
+        UserLookupTask task = new UserLookupTask();
+        task.setTaskId("user");
+        task.setParams(new HashMap<>(Map.of("userId", "missing")));
+        RequestContext context = new RequestContext();
+        task.accept(context);
+
+        assertFalse(context.getTaskResultMap().get("user").success());
+        assertEquals(List.of(1), UserLookupTask.BATCH_SIZES);
+    }
+
+    private CompletableFuture<RequestContext> run(TaskConfig taskConfig, String userId) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        context.getRequestParam().put("userId", userId);
+        return engine.startEngineAsync(context);
+    }
+
+    private static TaskConfig config(int maxBatchSize, long batchWindow) {
+        TaskParam userId = new TaskParam();
+        userId.setName("userId");
+        userId.setType(TaskParam.Type.CONTEXT);
+        userId.setValue("#(userId)#");
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("user");
+        detail.setFullClassName(UserLookupTask.class.getName());
+        detail.setTimeout(10000L);
+        detail.setMaxBatchSize(maxBatchSize);
+        detail.setBatchWindow(batchWindow);
+        detail.setTaskParams(List.of(userId));
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("batch");
+        taskConfig.setArrangeRule(List.of(List.of("user")));
+        taskConfig.setTaskDetailsMap(Map.of("user", detail));
+        return taskConfig;
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.admission.AdmissionDecision;
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.FlowRejectedException;
+import com.oneinstep.haidu.task.ConcurrencyProbeTask;
+import com.oneinstep.haidu.task.FailTask;
+import com.oneinstep.haidu.task.NoopTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.oneinstep.haidu.core.DagExecutionTest.config;
+import static com.oneinstep.haidu.core.DagExecutionTest.detail;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkExecutionTest {
+
+    private ExecutorService executor;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        engine = TaskEngine.builder().name("bulk").executor(executor).build();
+        ConcurrencyProbeTask.CURRENT.set(0);
+        ConcurrencyProbeTask.MAX.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldBoundInFlightFlows() throws Exception {
+        TaskConfig taskConfig = config(List.of("probe"), Map.of("probe", detail("probe", ConcurrencyProbeTask.class)));
+        AtomicInteger completed = new AtomicInteger();
+        // 上下文按需生成，不需要提前全部创建
+        Iterator<RequestContext> contexts = Stream.generate(RequestContext::new).limit(100).iterator();
+
+        BulkExecution bulk = engine.startEngineBulk(taskConfig, contexts, 4, (context, e) -> {
+            assertNull(e);
+            assertNotNull(context.getTaskResultMap().get("probe"));
+            completed.incrementAndGet();
+        });
+        bulk.getCompletion().get(30, TimeUnit.SECONDS);
+
+        assertEquals(100, completed.get());
+        assertEquals(100, bulk.getSucceeded());
+        assertEquals(0, bulk.getInFlight());
+        assertTrue(ConcurrencyProbeTask.MAX.get() <= 4, "max in flight: " + ConcurrencyProbeTask.MAX.get());
+    }
+
+    @Test
+    void shouldReportFailuresPerFlow() throws Exception {
+        TaskConfig taskConfig = config(List.of("fail"), Map.of("fail", detail("fail", FailTask.class)));
+        AtomicInteger errors = new AtomicInteger();
+        List<RequestContext> contexts = Stream.generate(RequestContext::new).limit(10).toList();
+
+        BulkExecution bulk = engine.startEngineBulk(taskConfig, contexts, 3, (context, e) -> {
+            if (e != null) {
+                errors.incrementAndGet();
+            }
+        });
+        bulk.getCompletion().get(30, TimeUnit.SECONDS);
+
+        assertEquals(10, errors.get());
+        assertEquals(10, bulk.getFailed());
+        assertEquals(0, bulk.getSucceeded());
+    }
+
+    @Test
+    void shouldNotRecurseOnSynchronousFlows() throws Exception {
+        TaskDetail noop = detail("noop", NoopTask.class);
+        noop.setExecutor("INLINE");
+        TaskConfig taskConfig = config(List.of("noop"), Map.of("noop", noop));
+        Iterator<RequestContext> contexts = Stream.generate(RequestContext::new).limit(5000).iterator();
+
+        // INLINE 任务流在启动它的线程上同步完成，补充不能递归
+        BulkExecution bulk = engine.startEngineBulk(taskConfig, contexts, 1, (context, e) -> assertNull(e));
+
+        assertTrue(bulk.getCompletion().isDone());
+        assertEquals(5000, bulk.getCompletion().get().getSucceeded());
+    }
+
+    @Test
+    void shouldBackOffWhenFlowsAreRejected() throws Exception {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        AtomicInteger rejected = new AtomicInteger();
+        TaskEngine rejecting = TaskEngine.builder().name("bulk-reject").executor(executor)
+                .admissionController((plan, context) -> {
+                    if (System.nanoTime() < until) {
+                        rejected.incrementAndGet();
+                        throw new FlowRejectedException(context.getTaskConfig().getArrangeName(),
+                                FlowRejectedException.Reason.OVERLOADED, "mock overload");
+                    }
+                    return AdmissionDecision.ADMIT;
+                }).build();
+        try {
+            TaskConfig taskConfig = config(List.of("noop"), Map.of("noop", detail("noop", NoopTask.class)));
+            List<RequestContext> contexts = Stream.generate(RequestContext::new).limit(50).toList();
+            AtomicInteger rejectedCallbacks = new AtomicInteger();
+
+            BulkExecution bulk = rejecting.startEngineBulk(taskConfig, contexts, 4, (context, e) -> {
+                if (e instanceof FlowRejectedException) {
+                    rejectedCallbacks.incrementAndGet();
+                }
+            });
+            bulk.getCompletion().get(30, TimeUnit.SECONDS);
+
+            // 被拒绝后暂停取出上下文，按退避时间重试，不会在过载期间把剩余的上下文全部拒绝
+            assertTrue(rejected.get() >= 1);
+            assertTrue(rejected.get() <= 8, "rejected: " + rejected.get());
+            assertEquals(rejected.get(), rejectedCallbacks.get());
+            assertEquals(rejected.get(), bulk.getFailed());
+            assertEquals(50 - rejected.get(), bulk.getSucceeded());
+        } finally {
+            rejecting.shutdown();
+        }
+    }
+
+    @Test
+    void shouldFailAfterInFlightFlowsWhenIteratorThrows() {
+        TaskConfig taskConfig = config(List.of("probe"), Map.of("probe", detail("probe", ConcurrencyProbeTask.class)));
+        Iterator<RequestContext> contexts = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public RequestContext next() {
+                if (next++ == 5) {
+                    throw new IllegalStateException("mock iterator failure");
+                }
+                return new RequestContext();
+            }
+        };
+
+        BulkExecution bulk = engine.startEngineBulk(taskConfig, contexts, 2, (context, e) -> {
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> bulk.getCompletion().get(30, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(5, bulk.getSucceeded());
+    }
+
+}
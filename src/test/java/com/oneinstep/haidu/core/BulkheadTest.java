@@ -0,0 +1,131 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.NoopTask;
+import com.oneinstep.haidu.task.ThreadNameTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.oneinstep.haidu.core.DagExecutionTest.config;
+import static com.oneinstep.haidu.core.DagExecutionTest.detail;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private ExecutorService defaultPool;
+    private ExecutorService ioPool;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        defaultPool = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "default-pool"));
+        ioPool = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "io-pool"));
+        engine = TaskEngine.builder().name("bulkhead-test").executor(defaultPool).executor("io", ioPool).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        defaultPool.shutdownNow();
+        ioPool.shutdownNow();
+        engine.shutdown();
+    }
+
+    @Test
+    void shouldRunTasksOnConfiguredExecutors() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        details.put("cpu", detail("cpu", ThreadNameTask.class));
+        TaskDetail io = detail("io", ThreadNameTask.class);
+        io.setExecutor("io");
+        details.put("io", io);
+        TaskDetail inline = detail("inline", ThreadNameTask.class);
+        inline.setExecutor(ExecutorRegistry.INLINE);
+        details.put("inline", inline);
+
+        RequestContext context = run(config(List.of("cpu:io", "io:inline"), details));
+
+        assertEquals("default-pool", context.getTaskResultMap().get("cpu").getData());
+        assertEquals("io-pool", context.getTaskResultMap().get("io").getData());
+        // INLINE 任务在完成前置任务的线程上执行，不切换线程
+        assertEquals("io-pool", context.getTaskResultMap().get("inline").getData());
+    }
+
+    @Test
+    void shouldRunLongInlineChainWithoutRecursion() throws Exception {
+        int length = 5000;
+        List<String> rules = new ArrayList<>();
+        Map<String, TaskDetail> details = new HashMap<>();
+        for (int i = 0; i < length; i++) {
+            TaskDetail detail = detail("t" + i, NoopTask.class);
+            detail.setExecutor(ExecutorRegistry.INLINE);
+            details.put("t" + i, detail);
+            if (i > 0) {
+                rules.add("t" + (i - 1) + ":t" + i);
+            }
+        }
+
+        RequestContext context = run(config(rules, details));
+
+        assertEquals(length, context.getTaskResultMap().size());
+    }
+
+    @Test
+    void shouldReportQueueDepthPerExecutor() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        Bulkhead io = engine.getBulkhead("io");
+        for (int i = 0; i < 5; i++) {
+            io.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(3, io.getQueueDepth());
+        assertEquals(2, io.getActiveCount());
+        assertEquals(0, engine.getBulkhead(ExecutorRegistry.DEFAULT).getQueueDepth());
+
+        release.countDown();
+    }
+
+    @Test
+    void shouldRejectUnknownExecutorName() {
+        assertThrows(IllegalArgumentException.class, () -> engine.registerExecutor("io", ioPool));
+        assertThrows(IllegalArgumentException.class, () -> engine.registerExecutor(ExecutorRegistry.INLINE, ioPool));
+
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail task = detail("task", NoopTask.class);
+        task.setExecutor("unknown");
+        details.put("task", task);
+        TaskConfig taskConfig = config(List.of("task"), details);
+
+        assertThrows(IllegalTaskConfigException.class, () -> engine.getExecutionPlan(taskConfig));
+    }
+
+    private RequestContext run(TaskConfig taskConfig) throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+        return new DagExecution(plan, context, engine).start().get(30, TimeUnit.SECONDS);
+    }
+
+}
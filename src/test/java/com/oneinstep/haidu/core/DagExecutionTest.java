@@ -0,0 +1,306 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.RetryStrategy;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.FailTask;
+import com.oneinstep.haidu.task.FlakyTask;
+import com.oneinstep.haidu.task.HangTask;
+import com.oneinstep.haidu.task.NoopTask;
+import com.oneinstep.haidu.task.SleepTask;
+import com.oneinstep.haidu.task.ThreadNameTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DagExecutionTest {
+
+    private ExecutorService executor;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        engine = TaskEngine.builder().name("dag-test").executor(executor).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldExecuteLongChainWithoutRecursion() throws Exception {
+        int length = 5000;
+        List<String> rules = new ArrayList<>();
+        Map<String, TaskDetail> details = new HashMap<>();
+        for (int i = 0; i < length - 1; i++) {
+            rules.add("t" + i + ":t" + (i + 1));
+        }
+        for (int i = 0; i < length; i++) {
+            details.put("t" + i, detail("t" + i, NoopTask.class));
+        }
+        RequestContext context = run(config(rules, details));
+
+        assertEquals(length, context.getTaskResultMap().size());
+        assertTrue(context.isEngineStarted());
+        assertTrue(context.getTaskInstanceMap().isEmpty());
+    }
+
+    @Test
+    void shouldExecuteWideFanOutAndFanIn() throws Exception {
+        int width = 2000;
+        StringBuilder leaves = new StringBuilder();
+        Map<String, TaskDetail> details = new HashMap<>();
+        for (int i = 0; i < width; i++) {
+            if (i > 0) {
+                leaves.append(',');
+            }
+            leaves.append("l").append(i);
+            details.put("l" + i, detail("l" + i, NoopTask.class));
+        }
+        details.put("root", detail("root", NoopTask.class));
+        details.put("sink", detail("sink", NoopTask.class));
+        RequestContext context = run(config(List.of("root:" + leaves, leaves + ":sink"), details));
+
+        assertEquals(width + 2, context.getTaskResultMap().size());
+    }
+
+    @Test
+    void shouldSkipDownstreamOfFailedTask() {
+        Map<String, TaskDetail> details = new HashMap<>();
+        details.put("fail", detail("fail", FailTask.class));
+        details.put("child", detail("child", NoopTask.class));
+        details.put("grandchild", detail("grandchild", NoopTask.class));
+        details.put("other", detail("other", NoopTask.class));
+        details.put("post", detail("post", NoopTask.class));
+        TaskConfig taskConfig = config(List.of("fail:child", "child:grandchild", "other"), details);
+        taskConfig.getArrangeRule().add(List.of("post"));
+
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> new DagExecution(plan, context, engine).start().get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(RuntimeException.class, exception.getCause());
+        // 独立分支正常执行，失败任务的下游和下一阶段都被跳过
+        assertTrue(context.getTaskResultMap().containsKey("other"));
+        assertFalse(context.getTaskResultMap().containsKey("child"));
+        assertFalse(context.getTaskResultMap().containsKey("grandchild"));
+        assertFalse(context.getTaskResultMap().containsKey("post"));
+        assertFalse(context.isEngineStarted());
+        assertTrue(context.getTaskInstanceMap().isEmpty());
+    }
+
+    @Test
+    void shouldScheduleDownstreamAtTimeoutDeadline() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail hang = detail("hang", HangTask.class);
+        hang.setTimeout(200L);
+        hang.setParams(Map.of("sleep", 3000));
+        details.put("hang", hang);
+        details.put("next", detail("next", NoopTask.class));
+
+        long start = System.nanoTime();
+        RequestContext context = run(config(List.of("hang:next"), details));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 下游任务在超时时刻调度，不等待仍在阻塞的任务线程
+        assertTrue(elapsedMillis < 2000, "elapsed " + elapsedMillis);
+        assertTrue(context.getTaskResultMap().containsKey("next"));
+        assertFalse(context.getTaskResultMap().containsKey("hang"));
+        assertEquals(true, context.getRequestParam().get("hang.timeout"));
+        assertNull(context.getRequestParam().get("hang.cancel"));
+    }
+
+    @Test
+    void shouldNotRunInlineSuccessorOnTimerThread() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail hang = detail("hang", HangTask.class);
+        hang.setTimeout(100L);
+        hang.setParams(Map.of("sleep", 3000));
+        details.put("hang", hang);
+        TaskDetail inline = detail("inline", ThreadNameTask.class);
+        inline.setExecutor(ExecutorRegistry.INLINE);
+        details.put("inline", inline);
+
+        RequestContext context = run(config(List.of("hang:inline"), details));
+
+        // 超时由定时器线程调度下游任务，INLINE 任务改在默认线程池上执行
+        String threadName = (String) context.getTaskResultMap().get("inline").getData();
+        assertNotEquals("dag-test-timer", threadName);
+    }
+
+    @Test
+    void shouldInterruptTaskOnTimeoutWhenConfigured() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail hang = detail("hang", HangTask.class);
+        hang.setTimeout(100L);
+        hang.setInterruptOnTimeout(true);
+        details.put("hang", hang);
+        details.put("next", detail("next", NoopTask.class));
+
+        RequestContext context = run(config(List.of("hang:next"), details));
+
+        assertTrue(context.getTaskResultMap().containsKey("next"));
+        assertEquals(true, context.getRequestParam().get("hang.timeout"));
+        assertEquals(true, context.getRequestParam().get("hang.cancel"));
+        // 中断异步到达任务线程，等待任务线程响应
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (context.getRequestParam().get("hang.interrupted") == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(true, context.getRequestParam().get("hang.interrupted"));
+        // 超时后的异常不会使任务流失败，中断标志也不会遗留在线程池线程上
+        assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldReleaseWorkerThreadBetweenRetries() throws Exception {
+        tearDown();
+        executor = Executors.newSingleThreadExecutor();
+        engine = TaskEngine.builder().name("dag-test").executor(executor).build();
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail flaky = detail("flaky", FlakyTask.class);
+        flaky.setRetries(2);
+        flaky.setRetryDelay(200L);
+        flaky.setParams(Map.of("failures", 2));
+        details.put("flaky", flaky);
+        TaskDetail other = detail("other", SleepTask.class);
+        other.setParams(Map.of("sleep", 50));
+        details.put("other", other);
+
+        long start = System.nanoTime();
+        RequestContext context = run(config(List.of("flaky", "other"), details));
+
+        // 唯一的任务线程在等待重试期间执行了另一个任务
+        long flakyFinished = (Long) context.getTaskResultMap().get("flaky").getData();
+        long otherFinished = (Long) context.getTaskResultMap().get("other").getData();
+        assertTrue(otherFinished < flakyFinished);
+        // 两次退避分别为 [100, 200] 和 [200, 400] 毫秒
+        assertTrue(flakyFinished - start >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    void shouldStopRetryingWhenStrategyDeclines() {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail flaky = detail("flaky", FlakyTask.class);
+        flaky.setRetries(3);
+        flaky.setRetryStrategy(NoRetryStrategy.class.getName());
+        details.put("flaky", flaky);
+
+        TaskConfig taskConfig = config(List.of("flaky"), details);
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        assertThrows(ExecutionException.class,
+                () -> new DagExecution(plan, context, engine).start().get(10, TimeUnit.SECONDS));
+        assertFalse(context.getTaskResultMap().containsKey("flaky"));
+    }
+
+    @Test
+    void shouldFailNodesNeedingTimerAfterShutdown() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail sleep = detail("sleep", SleepTask.class);
+        sleep.setParams(Map.of("sleep", 300));
+        // 不设置超时，关闭时没有尚未到期的定时任务，任务照常完成
+        sleep.setTimeout(0L);
+        details.put("sleep", sleep);
+        details.put("next", detail("next", NoopTask.class));
+        TaskConfig taskConfig = config(List.of("sleep:next"), details);
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        var future = new DagExecution(plan, context, engine).start();
+        Thread.sleep(100);
+        // 任务线程池由调用方持有，关闭引擎后仍在运行；下游节点无法注册超时定时器
+        engine.shutdown();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertTrue(context.getTaskResultMap().containsKey("sleep"));
+        assertFalse(context.getTaskResultMap().containsKey("next"));
+    }
+
+    @Test
+    void shouldFailFlowWaitingForRetryOnShutdown() throws Exception {
+        Map<String, TaskDetail> details = new HashMap<>();
+        TaskDetail flaky = detail("flaky", FlakyTask.class);
+        flaky.setRetries(1);
+        flaky.setRetryDelay(5000L);
+        flaky.setMaxRetryDelay(5000L);
+        flaky.setTimeout(0L);
+        details.put("flaky", flaky);
+        TaskConfig taskConfig = config(List.of("flaky"), details);
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        var future = new DagExecution(plan, context, engine).start();
+        Thread.sleep(100);
+        // 重试等待中的定时任务在关闭时立即执行，任务流不会一直等待
+        long start = System.nanoTime();
+        engine.shutdown();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertFalse(context.getTaskResultMap().containsKey("flaky"));
+    }
+
+    private RequestContext run(TaskConfig taskConfig) throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+        return new DagExecution(plan, context, engine).start().get(30, TimeUnit.SECONDS);
+    }
+
+    static TaskConfig config(List<String> rules, Map<String, TaskDetail> details) {
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("dag-test");
+        List<List<String>> arrangeRule = new ArrayList<>();
+        arrangeRule.add(rules);
+        taskConfig.setArrangeRule(arrangeRule);
+        taskConfig.setTaskDetailsMap(details);
+        return taskConfig;
+    }
+
+    public static class NoRetryStrategy implements RetryStrategy {
+
+        @Override
+        public boolean shouldRetry(Throwable e, int attempts) {
+            return false;
+        }
+
+        @Override
+        public long getDelayMillis(int attempts) {
+            return 0;
+        }
+    }
+
+    static TaskDetail detail(String taskId, Class<?> taskClass) {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId(taskId);
+        detail.setFullClassName(taskClass.getName());
+        return detail;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.oneinstep.haidu.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间轮与 ScheduledThreadPoolExecutor 在 10 万个未到期定时任务下的对比
+ * 模拟任务超时的典型用法：注册后绝大多数在到期前被取消
+ * <p>
+ * 运行方式：mvn test -Dtest=HashedWheelTimerBenchmark -Dhaidu.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "haidu.benchmark", matches = "true")
+class HashedWheelTimerBenchmark {
+
+    private static final int TIMERS = 100_000;
+    private static final int ROUNDS = 10;
+
+    @Test
+    void compareWithScheduledThreadPoolExecutor() {
+        Runnable noop = () -> {
+        };
+        long[] delays = new long[TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            // 与任务超时相近的分布：1 到 10 秒
+            delays[i] = ThreadLocalRandom.current().nextLong(1_000, 10_000);
+        }
+
+        HashedWheelTimer wheel = new HashedWheelTimer("benchmark-timer", 10, TimeUnit.MILLISECONDS, 512);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long wheelNanos = runWheel(wheel, noop, delays);
+                long executorNanos = runExecutor(executor, noop, delays);
+                System.out.printf("round %d: HashedWheelTimer %d ms, ScheduledThreadPoolExecutor %d ms%n",
+                        round, TimeUnit.NANOSECONDS.toMillis(wheelNanos), TimeUnit.NANOSECONDS.toMillis(executorNanos));
+            }
+        } finally {
+            wheel.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 注册 10 万个定时任务后全部取消
+     */
+    private static long runWheel(HashedWheelTimer wheel, Runnable task, long[] delays) {
+        HashedWheelTimer.Timeout[] timeouts = new HashedWheelTimer.Timeout[delays.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            timeouts[i] = wheel.newTimeout(task, delays[i], TimeUnit.MILLISECONDS);
+        }
+        for (HashedWheelTimer.Timeout timeout : timeouts) {
+            timeout.cancel();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runExecutor(ScheduledThreadPoolExecutor executor, Runnable task, long[] delays) {
+        ScheduledFuture<?>[] futures = new ScheduledFuture[delays.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            futures[i] = executor.schedule(task, delays[i], TimeUnit.MILLISECONDS);
+        }
+        for (ScheduledFuture<?> future : futures) {
+            future.cancel(false);
+        }
+        return System.nanoTime() - start;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.oneinstep.haidu.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        // 8 个槽位，确保延迟超过一圈的定时任务也被覆盖
+        timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void shouldExpireInDeadlineOrder() throws Exception {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+        timer.newTimeout(() -> {
+            order.add(250);
+            latch.countDown();
+        }, 250, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> {
+            order.add(30);
+            latch.countDown();
+        }, 30, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> {
+            order.add(120);
+            latch.countDown();
+        }, 120, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(30, 120, 250), order);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    void shouldNotRunCancelledTimeout() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout cancelled = timer.newTimeout(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, fired.get());
+        assertTrue(cancelled.isCancelled());
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    void shouldNotCancelExpiredTimeout() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(latch::countDown, 0, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void shouldKeepRunningWhenTaskThrows() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.newTimeout(() -> {
+            throw new IllegalStateException("mock");
+        }, 10, TimeUnit.MILLISECONDS);
+        timer.newTimeout(latch::countDown, 40, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRejectTimeoutAfterStop() {
+        timer.newTimeout(() -> {
+        }, 1, TimeUnit.SECONDS);
+        timer.stop();
+
+        assertThrows(IllegalStateException.class, () -> timer.newTimeout(() -> {
+        }, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldReturnUnprocessedTimeoutsOnStop() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.newTimeout(latch::countDown, 10, TimeUnit.MILLISECONDS);
+        // 一个在槽位中，一个超过一圈，一个已取消
+        timer.newTimeout(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        timer.newTimeout(fired::incrementAndGet, 5, TimeUnit.SECONDS);
+        timer.newTimeout(fired::incrementAndGet, 5, TimeUnit.SECONDS).cancel();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        List<HashedWheelTimer.Timeout> unprocessed = timer.stop();
+        assertTrue(timer.isStopped());
+        assertEquals(2, unprocessed.size());
+        assertEquals(0, fired.get());
+        unprocessed.forEach(HashedWheelTimer.Timeout::expire);
+        assertEquals(2, fired.get());
+        assertEquals(0, timer.pendingTimeouts());
+        // 重复停止不再返回
+        assertTrue(timer.stop().isEmpty());
+    }
+
+}
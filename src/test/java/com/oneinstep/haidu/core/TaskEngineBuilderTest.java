@@ -0,0 +1,141 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.monitor.TaskMonitor;
+import com.oneinstep.haidu.task.ThreadNameTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.oneinstep.haidu.core.DagExecutionTest.config;
+import static com.oneinstep.haidu.core.DagExecutionTest.detail;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEngineBuilderTest {
+
+    private ExecutorService poolA;
+    private ExecutorService poolB;
+
+    @BeforeEach
+    void setUp() {
+        poolA = Executors.newFixedThreadPool(2, r -> new Thread(r, "engine-a"));
+        poolB = Executors.newFixedThreadPool(2, r -> new Thread(r, "engine-b"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        poolA.shutdownNow();
+        poolB.shutdownNow();
+    }
+
+    @Test
+    void shouldRunFlowsOnIndependentEngines() throws Exception {
+        TaskEngine engineA = TaskEngine.builder().name("a").executor(poolA).build();
+        TaskEngine engineB = TaskEngine.builder().name("b").executor(poolB).build();
+        try {
+            TaskConfig taskConfig = config(List.of("t1:t2"), Map.of(
+                    "t1", detail("t1", ThreadNameTask.class),
+                    "t2", detail("t2", ThreadNameTask.class)));
+
+            RequestContext contextA = run(engineA, taskConfig);
+            RequestContext contextB = run(engineB, taskConfig);
+
+            assertEquals("engine-a", contextA.getTaskResultMap().get("t2").getData());
+            assertEquals("engine-b", contextB.getTaskResultMap().get("t2").getData());
+            // 执行计划缓存按引擎隔离
+            assertNotSame(engineA.getExecutionPlan(taskConfig), engineB.getExecutionPlan(taskConfig));
+            assertSame(engineA.getExecutionPlan(taskConfig), engineA.getExecutionPlan(taskConfig));
+        } finally {
+            engineA.shutdown();
+            engineB.shutdown();
+        }
+        // 外部传入的线程池不随引擎关闭
+        assertFalse(poolA.isShutdown());
+    }
+
+    @Test
+    void shouldReportToEngineMonitor() throws Exception {
+        RecordingMonitor monitor = new RecordingMonitor();
+        TaskEngine engine = TaskEngine.builder().name("monitored").executor(poolA).monitor(monitor).build();
+        try {
+            run(engine, config(List.of("t1"), Map.of("t1", detail("t1", ThreadNameTask.class))));
+        } finally {
+            engine.shutdown();
+        }
+
+        assertEquals(List.of("queue:t1", "start:t1", "complete:t1", "duration:t1"), List.copyOf(monitor.events));
+
+        TaskEngine defaults = TaskEngine.builder().build();
+        assertSame(TaskMonitor.NOOP, defaults.getMonitor());
+        defaults.shutdown();
+    }
+
+    @Test
+    void shouldRouteTasksToExecutorRegisteredOnBuilder() throws Exception {
+        TaskEngine engine = TaskEngine.builder().name("routed").executor(poolA).executor("io", poolB).build();
+        try {
+            TaskDetail io = detail("t1", ThreadNameTask.class);
+            io.setExecutor("io");
+            RequestContext context = run(engine, config(List.of("t1"), Map.of("t1", io)));
+
+            assertEquals("engine-b", context.getTaskResultMap().get("t1").getData());
+            assertNotNull(engine.getBulkhead("io"));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidBuilderArguments() {
+        assertThrows(IllegalArgumentException.class, () -> TaskEngine.builder().name(" "));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskEngine.builder().executor("io", poolA).executor("io", poolB));
+    }
+
+    @Test
+    void shouldKeepSharedDefaultInstance() {
+        assertSame(TaskEngine.getInstance(null), TaskEngine.getInstance(null));
+    }
+
+    private static RequestContext run(TaskEngine engine, TaskConfig taskConfig) throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        return engine.startEngineAsync(context).get(10, TimeUnit.SECONDS);
+    }
+
+    private static class RecordingMonitor implements TaskMonitor {
+
+        private final Queue<String> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onTaskStart(String taskId) {
+            events.add("start:" + taskId);
+        }
+
+        @Override
+        public void onTaskComplete(String taskId, long duration) {
+            events.add("complete:" + taskId);
+        }
+
+        @Override
+        public void recordTaskDuration(String taskId, long duration) {
+            events.add("duration:" + taskId);
+        }
+
+        @Override
+        public void recordTaskQueueTime(String taskId, long queueTime) {
+            events.add("queue:" + taskId);
+        }
+    }
+
+}
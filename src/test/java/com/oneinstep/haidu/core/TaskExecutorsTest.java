@@ -0,0 +1,45 @@
+package com.oneinstep.haidu.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskExecutorsTest {
+
+    private static final boolean JAVA_21 = Runtime.version().feature() >= 21;
+
+    @Test
+    void shouldCreatePlatformExecutor() {
+        ExecutorService executor = TaskExecutors.create(ExecutorMode.PLATFORM);
+        try {
+            ThreadPoolExecutor pool = assertInstanceOf(ThreadPoolExecutor.class, executor);
+            assertEquals(100, pool.getMaximumPoolSize());
+            assertEquals(128, pool.getQueue().remainingCapacity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldDetectVirtualThreadSupport() throws Exception {
+        assertEquals(JAVA_21, TaskExecutors.isVirtualThreadSupported());
+        if (!JAVA_21) {
+            assertThrows(UnsupportedOperationException.class, () -> TaskExecutors.create(ExecutorMode.VIRTUAL));
+            return;
+        }
+        ExecutorService executor = TaskExecutors.create(ExecutorMode.VIRTUAL);
+        try {
+            // Thread.isVirtual 在 Java 21 才有，通过反射调用
+            Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual")
+                    .invoke(Thread.currentThread())).get(5, TimeUnit.SECONDS);
+            assertEquals(true, virtual);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
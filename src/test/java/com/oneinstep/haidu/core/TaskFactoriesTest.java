@@ -0,0 +1,96 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.exception.HaiduException;
+import com.oneinstep.haidu.result.Result;
+import com.oneinstep.haidu.task.Task1;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskFactoriesTest {
+
+    @Test
+    void shouldCreateNewInstanceEachCall() {
+        Supplier<AbstractTask<?>> factory = TaskFactories.getFactory(Task1.class);
+
+        AbstractTask<?> first = factory.get();
+        AbstractTask<?> second = factory.get();
+
+        assertInstanceOf(Task1.class, first);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void shouldUseLambdaMetafactory() {
+        Supplier<AbstractTask<?>> factory = TaskFactories.getFactory(Task1.class);
+
+        assertTrue(factory.getClass().getName().contains("$$Lambda"));
+    }
+
+    @Test
+    void shouldCacheFactoryPerClass() {
+        assertSame(TaskFactories.getFactory(Task1.class), TaskFactories.getFactory(Task1.class));
+    }
+
+    @Test
+    void shouldSupportPrivateConstructor() {
+        AbstractTask<?> task = TaskFactories.getFactory(PrivateTask.class).get();
+
+        assertInstanceOf(PrivateTask.class, task);
+    }
+
+    @Test
+    void shouldRejectTaskWithoutDefaultConstructor() {
+        assertThrows(HaiduException.class, () -> TaskFactories.getFactory(NoDefaultConstructorTask.class));
+    }
+
+    @Test
+    void shouldRejectNonTaskClass() {
+        assertThrows(HaiduException.class, () -> TaskFactories.getFactory(String.class));
+    }
+
+    private static class PrivateTask extends AbstractTask<String> {
+
+        private PrivateTask() {
+        }
+
+        @Override
+        protected Result<String> invoke(RequestContext requestContext) {
+            return Result.success("private");
+        }
+
+        @Override
+        protected void beforeInvoke(RequestContext requestContext) {
+        }
+
+        @Override
+        protected void afterInvoke(RequestContext requestContext) {
+        }
+    }
+
+    private static class NoDefaultConstructorTask extends AbstractTask<String> {
+
+        private final String value;
+
+        NoDefaultConstructorTask(String value) {
+            this.value = value;
+        }
+
+        @Override
+        protected Result<String> invoke(RequestContext requestContext) {
+            return Result.success(value);
+        }
+
+        @Override
+        protected void beforeInvoke(RequestContext requestContext) {
+        }
+
+        @Override
+        protected void afterInvoke(RequestContext requestContext) {
+        }
+    }
+
+}
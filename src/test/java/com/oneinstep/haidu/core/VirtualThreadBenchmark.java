@@ -0,0 +1,84 @@
+package com.oneinstep.haidu.core;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.SleepTask;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1 万个并发任务流在平台线程池和虚拟线程下的吞吐对比
+ * 每个任务流为两个串行的阻塞任务，各阻塞 50ms，模拟下游 I/O
+ * <p>
+ * 运行方式（需要 JDK 21）：mvn -Pjdk21 test -Dtest=VirtualThreadBenchmark -Dhaidu.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "haidu.benchmark", matches = "true")
+class VirtualThreadBenchmark {
+
+    private static final int FLOWS = 10_000;
+
+    @Test
+    void compareWithPlatformThreads() {
+        Assumptions.assumeTrue(TaskExecutors.isVirtualThreadSupported(), "virtual threads require Java 21");
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(config());
+        // 默认平台线程池的队列只有 128，1 万个并发任务流会被拒绝，这里使用无界队列只比较吞吐
+        ExecutorService platform = Executors.newFixedThreadPool(100);
+        TaskEngine platformEngine = TaskEngine.builder().name("platform").executor(platform).build();
+        TaskEngine virtualEngine = TaskEngine.builder().name("virtual").executorMode(ExecutorMode.VIRTUAL).build();
+        try {
+            report("platform(100)", run(plan, platformEngine));
+            report("virtual", run(plan, virtualEngine));
+        } finally {
+            platformEngine.shutdown();
+            virtualEngine.shutdown();
+            platform.shutdownNow();
+        }
+    }
+
+    private static long run(ExecutionPlan plan, TaskEngine engine) {
+        List<CompletableFuture<RequestContext>> flows = new ArrayList<>(FLOWS);
+        long start = System.nanoTime();
+        for (int i = 0; i < FLOWS; i++) {
+            RequestContext context = new RequestContext();
+            flows.add(new DagExecution(plan, context, engine).start());
+        }
+        CompletableFuture.allOf(flows.toArray(new CompletableFuture[0])).join();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String mode, long nanos) {
+        long millis = Math.max(TimeUnit.NANOSECONDS.toMillis(nanos), 1);
+        System.out.printf("%-14s %d flows in %d ms, %d flows/s%n", mode, FLOWS, millis, FLOWS * 1000L / millis);
+    }
+
+    private static TaskConfig config() {
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("virtual-thread-benchmark");
+        taskConfig.setArrangeRule(List.of(List.of("first:second")));
+        taskConfig.setTaskDetailsMap(Map.of("first", detail("first"), "second", detail("second")));
+        return taskConfig;
+    }
+
+    private static TaskDetail detail(String taskId) {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId(taskId);
+        detail.setFullClassName(SleepTask.class.getName());
+        // 排队时间不计入超时
+        detail.setTimeout(0L);
+        detail.setParams(Map.of("sleep", 50));
+        return detail;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.oneinstep.haidu.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExponentialBackoffRetryStrategyTest {
+
+    @Test
+    void shouldBackOffExponentiallyWithJitter() {
+        ExponentialBackoffRetryStrategy strategy = new ExponentialBackoffRetryStrategy(100, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(50, 100, strategy.getDelayMillis(1));
+            assertBetween(100, 200, strategy.getDelayMillis(2));
+            assertBetween(200, 400, strategy.getDelayMillis(3));
+            assertBetween(500, 1000, strategy.getDelayMillis(5));
+            assertBetween(500, 1000, strategy.getDelayMillis(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void shouldRetryImmediatelyWithoutInitialDelay() {
+        assertEquals(0, new ExponentialBackoffRetryStrategy(0, 0).getDelayMillis(3));
+    }
+
+    @Test
+    void shouldNotRetryErrors() {
+        ExponentialBackoffRetryStrategy strategy = new ExponentialBackoffRetryStrategy();
+
+        assertTrue(strategy.shouldRetry(new RuntimeException(), 1));
+        assertTrue(strategy.shouldRetry(null, 1));
+        assertFalse(strategy.shouldRetry(new OutOfMemoryError(), 1));
+    }
+
+    @Test
+    void shouldRejectInvalidDelays() {
+        assertThrows(IllegalArgumentException.class, () -> new ExponentialBackoffRetryStrategy(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ExponentialBackoffRetryStrategy(100, 10));
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual >= min && actual <= max, actual + " not in [" + min + ", " + max + "]");
+    }
+
+}
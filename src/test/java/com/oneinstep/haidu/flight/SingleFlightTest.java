@@ -0,0 +1,118 @@
+package com.oneinstep.haidu.flight;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.result.Result;
+import com.oneinstep.haidu.task.NoopTask;
+import com.oneinstep.haidu.task.ProductConfigTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void shouldShareInFlightCallWithEqualParams() {
+        SingleFlight singleFlight = new SingleFlight();
+        Map<String, Object> params = new HashMap<>(Map.of("productId", 1));
+        SingleFlight.Call leader = singleFlight.join(ProductConfigTask.class, "config", params);
+        // 键在加入时复制参数，之后的修改不影响合并
+        params.put("productId", 2);
+        SingleFlight.Call follower = singleFlight.join(ProductConfigTask.class, "config", Map.of("productId", 1));
+        SingleFlight.Call other = singleFlight.join(ProductConfigTask.class, "config", Map.of("productId", 2));
+
+        assertTrue(leader.isLeader());
+        assertFalse(follower.isLeader());
+        assertSame(leader.getFuture(), follower.getFuture());
+        assertTrue(other.isLeader());
+        assertThrows(IllegalStateException.class, () -> follower.complete(null, null));
+
+        Result<String> result = Result.success("config-1");
+        leader.complete(result, null);
+        assertSame(result, follower.getFuture().join());
+        assertEquals(1, singleFlight.getCoalesced());
+        assertEquals(1, singleFlight.getInFlight());
+
+        // 完成之后到达的请求重新执行
+        assertTrue(singleFlight.join(ProductConfigTask.class, "config", Map.of("productId", 1)).isLeader());
+    }
+
+    @Test
+    void shouldNotShareCallsBetweenTaskClassesWithSameTaskId() {
+        SingleFlight singleFlight = new SingleFlight();
+        SingleFlight.Call config = singleFlight.join(ProductConfigTask.class, "config", Map.of("productId", 1));
+        // 另一个配置中任务ID相同、实现不同的任务
+        SingleFlight.Call other = singleFlight.join(NoopTask.class, "config", Map.of("productId", 1));
+
+        assertTrue(config.isLeader());
+        assertTrue(other.isLeader());
+        assertNotSame(config.getFuture(), other.getFuture());
+        assertEquals(0, singleFlight.getCoalesced());
+    }
+
+    @Test
+    void shouldCoalesceConcurrentFlowsAcrossRequests() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        TaskEngine engine = TaskEngine.builder().name("flight").executor(executor).build();
+        ProductConfigTask.INVOCATIONS.set(0);
+        try {
+            TaskConfig taskConfig = config();
+            List<CompletableFuture<RequestContext>> flows = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                flows.add(run(engine, taskConfig, i < 16 ? "p1" : "p2"));
+            }
+            for (int i = 0; i < flows.size(); i++) {
+                RequestContext context = flows.get(i).join();
+                assertEquals(i < 16 ? "config-p1" : "config-p2", context.getTaskResultMap().get("config").getData());
+            }
+
+            // 两组参数各真正执行一次，其余请求共享结果
+            assertTrue(ProductConfigTask.INVOCATIONS.get() <= 4, "invocations: " + ProductConfigTask.INVOCATIONS.get());
+            assertTrue(engine.getSingleFlight().getCoalesced() >= 16);
+            assertEquals(0, engine.getSingleFlight().getInFlight());
+
+            // 进行中的调用结束后不缓存结果
+            run(engine, taskConfig, "p1").join();
+            assertEquals(ProductConfigTask.INVOCATIONS.get(), 20 - engine.getSingleFlight().getCoalesced() + 1);
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static CompletableFuture<RequestContext> run(TaskEngine engine, TaskConfig taskConfig, String productId) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        context.getRequestParam().put("productId", productId);
+        return engine.startEngineAsync(context);
+    }
+
+    private static TaskConfig config() {
+        TaskParam productId = new TaskParam();
+        productId.setName("productId");
+        productId.setType(TaskParam.Type.CONTEXT);
+        productId.setValue("#(productId)#");
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("config");
+        detail.setFullClassName(ProductConfigTask.class.getName());
+        detail.setCoalesce(true);
+        detail.setTaskParams(List.of(productId));
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("flight");
+        taskConfig.setArrangeRule(List.of(List.of("config")));
+        taskConfig.setTaskDetailsMap(Map.of("config", detail));
+        return taskConfig;
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.oneinstep.haidu.hedge;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.TailLatencyTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgePolicyTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private ExecutorService executor;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        engine = TaskEngine.builder().name("hedge").executor(executor).build();
+        TailLatencyTask.SLOW_CALLS.set(0);
+        TailLatencyTask.CANCELLED.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldUsePercentileOfRecentLatencies() {
+        HedgePolicy policy = new HedgePolicy("t1", 95);
+        for (int i = 1; i < 20; i++) {
+            policy.record(i * MILLIS);
+        }
+        // 样本不足时不对冲
+        assertEquals(-1, policy.getDelayNanos());
+
+        HedgePolicy warm = new HedgePolicy("t1", 95);
+        for (int i = 1; i <= 100; i++) {
+            warm.record(i * MILLIS);
+        }
+        assertEquals(95 * MILLIS, warm.getDelayNanos());
+    }
+
+    @Test
+    void shouldTakeHedgeResultAndCancelSlowPrimary() throws Exception {
+        TaskConfig taskConfig = config(true);
+        // 积累样本，并等待分位数重新计算
+        for (int i = 0; i < 30; i++) {
+            run(taskConfig);
+        }
+        Thread.sleep(150);
+        assertTrue(engine.getHedgePolicy(taskConfig, "read").getDelayNanos() > 0);
+        // 另一个配置中的同名任务单独积累样本
+        TaskConfig other = config(true);
+        run(other);
+        assertEquals(-1, engine.getHedgePolicy(other, "read").getDelayNanos());
+
+        TailLatencyTask.SLOW_CALLS.set(1);
+        long begin = System.nanoTime();
+        RequestContext context = run(taskConfig);
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals(5L, context.getTaskResultMap().get("read").getData());
+        assertTrue(elapsed < 300 * MILLIS, "hedged flow took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        HedgePolicy policy = engine.getHedgePolicy(taskConfig, "read");
+        assertTrue(policy.getHedges() >= 1);
+        assertTrue(policy.getWins() >= 1);
+        // 落后的主调用被中断
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (TailLatencyTask.CANCELLED.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, TailLatencyTask.CANCELLED.get());
+    }
+
+    @Test
+    void shouldNotHedgeWithoutEnoughSamples() throws Exception {
+        TaskConfig taskConfig = config(true);
+        TailLatencyTask.SLOW_CALLS.set(1);
+        RequestContext context = run(taskConfig);
+
+        assertEquals(500L, context.getTaskResultMap().get("read").getData());
+        assertEquals(0, engine.getHedgePolicy(taskConfig, "read").getHedges());
+    }
+
+    @Test
+    void shouldRejectInvalidPercentile() {
+        TaskConfig taskConfig = config(true);
+        taskConfig.getTaskDetailsMap().get("read").setHedgePercentile(100D);
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    private RequestContext run(TaskConfig taskConfig) throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        return engine.startEngineAsync(context).get(10, TimeUnit.SECONDS);
+    }
+
+    private static TaskConfig config(boolean hedge) {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("read");
+        detail.setFullClassName(TailLatencyTask.class.getName());
+        detail.setHedge(hedge);
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("hedge");
+        taskConfig.setArrangeRule(List.of(List.of("read")));
+        taskConfig.setTaskDetailsMap(Map.of("read", detail));
+        return taskConfig;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.oneinstep.haidu.integration;
+
+import com.oneinstep.haidu.config.ArrangeMode;
+import com.oneinstep.haidu.config.JsonTaskDefinitionReader;
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskConfigFactory;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试全局编排模式
+ */
+class TestGlobalArrange {
+
+    private static final String CONFIG = """
+            {
+              "arrangeName": "global-test",
+              "description": "Global arrange test",
+              "arrangeRule": [
+                ["start"],
+                ["fast"],
+                ["slow"],
+                ["post"]
+              ],
+              "taskDetailsMap": {
+                "start": {
+                  "taskId": "start",
+                  "fullClassName": "com.oneinstep.haidu.task.SleepTask"
+                },
+                "fast": {
+                  "taskId": "fast",
+                  "fullClassName": "com.oneinstep.haidu.task.SleepTask",
+                  "taskParams": [
+                    {"name": "sleep", "type": "INT", "value": "20", "required": true}
+                  ]
+                },
+                "slow": {
+                  "taskId": "slow",
+                  "fullClassName": "com.oneinstep.haidu.task.SleepTask",
+                  "taskParams": [
+                    {"name": "sleep", "type": "INT", "value": "500", "required": true}
+                  ]
+                },
+                "post": {
+                  "taskId": "post",
+                  "fullClassName": "com.oneinstep.haidu.task.SleepTask",
+                  "dependsOn": ["fast"]
+                }
+              }
+            }
+            """;
+
+    private TaskConfig taskConfig;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TaskConfigFactory factory = new TaskConfigFactory(new JsonTaskDefinitionReader());
+        this.taskConfig = factory.createConfig(new StringReader(CONFIG));
+        this.engine = TaskEngine.getInstance(Executors.newFixedThreadPool(4));
+    }
+
+    @Test
+    void shouldStartAsSoonAsDependenciesFinishInGlobalMode() {
+        taskConfig.setArrangeMode(ArrangeMode.GLOBAL);
+
+        RequestContext context = run();
+
+        // 后置任务只依赖 fast，不再等待 slow
+        assertTrue(finishedAt(context, "post") < finishedAt(context, "slow"));
+        assertTrue(finishedAt(context, "post") > finishedAt(context, "fast"));
+    }
+
+    @Test
+    void shouldWaitForAllParallelGroupsInGroupMode() {
+        RequestContext context = run();
+
+        assertTrue(finishedAt(context, "post") > finishedAt(context, "slow"));
+    }
+
+    private RequestContext run() {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        engine.startEngine(context);
+        return context;
+    }
+
+    private static long finishedAt(RequestContext context, String taskId) {
+        return (Long) context.getTaskResultMap().get(taskId).getData();
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.oneinstep.haidu.integration;
+
+import com.oneinstep.haidu.config.JsonTaskDefinitionReader;
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskConfigFactory;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 测试异步启动任务引擎
+ */
+class TestStartEngineAsync {
+
+    private TaskConfig taskConfig;
+    private TaskEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TaskConfigFactory factory = new TaskConfigFactory(new JsonTaskDefinitionReader());
+        this.taskConfig = factory.createConfig(new InputStreamReader(Objects.requireNonNull(
+                getClass().getResourceAsStream("/config/demo.task.config.json")), StandardCharsets.UTF_8));
+        this.engine = TaskEngine.getInstance(Executors.newFixedThreadPool(20));
+    }
+
+    @Test
+    void shouldReturnBeforeTasksComplete() throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+
+        CompletableFuture<RequestContext> future = engine.startEngineAsync(context);
+        // 前置任务至少需要 100ms，调用线程不会被阻塞
+        assertFalse(future.isDone());
+
+        RequestContext result = future.get(10, TimeUnit.SECONDS);
+        assertSame(context, result);
+        assertTrue(context.isEngineStarted());
+        assertEquals(11, context.getTaskResultMap().size());
+        assertTrue(context.getTaskInstanceMap().isEmpty());
+    }
+
+    @Test
+    void shouldCompleteExceptionallyForInvalidConfig() {
+        RequestContext context = new RequestContext();
+
+        CompletableFuture<RequestContext> future = engine.startEngineAsync(context);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalTaskConfigException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenStartedTwice() throws Exception {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        engine.startEngineAsync(context).get(10, TimeUnit.SECONDS);
+
+        CompletableFuture<RequestContext> future = engine.startEngineAsync(context);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+}
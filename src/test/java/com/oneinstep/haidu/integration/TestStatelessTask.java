@@ -0,0 +1,85 @@
+package com.oneinstep.haidu.integration;
+
+import com.oneinstep.haidu.config.JsonTaskDefinitionReader;
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskConfigFactory;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.plan.PlanNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 测试无状态任务在请求间共享实例
+ */
+class TestStatelessTask {
+
+    @Test
+    void shouldShareInstanceAcrossRequests() throws Exception {
+        String config = """
+                {
+                  "arrangeName": "stateless-test",
+                  "description": "Stateless task test",
+                  "arrangeRule": [
+                    ["echo"]
+                  ],
+                  "taskDetailsMap": {
+                    "echo": {
+                      "taskId": "echo",
+                      "fullClassName": "com.oneinstep.haidu.task.StatelessEchoTask",
+                      "taskParams": [
+                        {
+                          "name": "user",
+                          "type": "CONTEXT",
+                          "value": "#(user)#",
+                          "required": true
+                        }
+                      ]
+                    }
+                  }
+                }
+                """;
+        TaskConfigFactory factory = new TaskConfigFactory(new JsonTaskDefinitionReader());
+        TaskConfig taskConfig = factory.createConfig(new StringReader(config));
+
+        TaskEngine engine = TaskEngine.getInstance(Executors.newFixedThreadPool(2));
+
+        RequestContext alice = newContext(taskConfig, "alice");
+        RequestContext bob = newContext(taskConfig, "bob");
+        // 调用方线程与任务线程池分开，避免阻塞等待时占满任务线程
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(() -> engine.startEngine(alice), callers),
+                    CompletableFuture.runAsync(() -> engine.startEngine(bob), callers)).join();
+        } finally {
+            callers.shutdown();
+        }
+
+        String aliceData = (String) alice.getTaskResultMap().get("echo").getData();
+        String bobData = (String) bob.getTaskResultMap().get("echo").getData();
+        assertTrue(aliceData.startsWith("alice@"));
+        assertTrue(bobData.startsWith("bob@"));
+        // 两次请求使用同一个实例
+        assertEquals(aliceData.substring("alice".length()), bobData.substring("bob".length()));
+
+        // 共享实例的参数不会被请求数据修改
+        PlanNode node = engine.getExecutionPlan(taskConfig).getNode("echo");
+        assertSame(node.getTaskInstance(), node.getTaskInstance());
+        assertEquals("#(user)#", node.getTaskInstance().getParams().get("user"));
+    }
+
+    private static RequestContext newContext(TaskConfig taskConfig, String user) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        context.getRequestParam().put("user", user);
+        return context;
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.oneinstep.haidu.limit;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.ConcurrencyProbeTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void shouldQueueBeyondLimitWithoutBlocking() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("a", new AimdLimit(2, 2));
+        List<String> started = new ArrayList<>();
+        limiter.execute(() -> started.add("1"));
+        limiter.execute(() -> started.add("2"));
+        limiter.execute(() -> started.add("3"));
+
+        assertEquals(List.of("1", "2"), started);
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getWaiting());
+
+        // 释放许可的线程继续提交等待的节点
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertEquals(List.of("1", "2", "3"), started);
+        assertEquals(0, limiter.getWaiting());
+        limiter.release();
+        limiter.release();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldIncreaseAdditivelyAndDecreaseMultiplicatively() {
+        AimdLimit limit = new AimdLimit(20, 30);
+        limit.onSample(1_000, 10, false);
+        assertEquals(21, limit.getLimit());
+        // 并发远低于上限时不增长
+        limit.onSample(1_000, 2, false);
+        assertEquals(21, limit.getLimit());
+        limit.onSample(1_000, 21, true);
+        assertEquals(18, limit.getLimit());
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(1_000, 30, false);
+        }
+        assertEquals(30, limit.getLimit());
+    }
+
+    @Test
+    void shouldFollowLatencyGradient() {
+        GradientLimit limit = new GradientLimit(20, 200);
+        long normal = TimeUnit.MILLISECONDS.toNanos(10);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(normal, limit.getLimit(), false);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 20, "limit should grow while latency is steady: " + grown);
+
+        // 下游变慢，延迟升高到 4 倍
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(normal * 4, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < grown / 2, "limit should shrink when latency rises: " + limit.getLimit());
+    }
+
+    @Test
+    void shouldLimitTaskInstancesAcrossRequests() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        TaskEngine engine = TaskEngine.builder().name("limit").executor(executor).build();
+        ConcurrencyProbeTask.MAX.set(0);
+        try {
+            TaskConfig taskConfig = config(ConcurrencyLimiter.AIMD, 2);
+            List<CompletableFuture<RequestContext>> flows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                RequestContext context = new RequestContext();
+                context.setTaskConfig(taskConfig);
+                flows.add(engine.startEngineAsync(context));
+            }
+            flows.forEach(CompletableFuture::join);
+
+            assertTrue(ConcurrencyProbeTask.MAX.get() <= 2, "max concurrency: " + ConcurrencyProbeTask.MAX.get());
+            ConcurrencyLimiter limiter = engine.getConcurrencyLimiter(taskConfig, "probe");
+            assertEquals(2, limiter.getLimit());
+            assertEquals(0, limiter.getInFlight());
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepSeparateLimitersPerConfigAndVersion() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        TaskEngine engine = TaskEngine.builder().name("limit").executor(executor).build();
+        try {
+            // 任务ID只在一个配置内唯一，两个配置中的 probe 各自限制
+            TaskConfig small = config(ConcurrencyLimiter.AIMD, 2);
+            TaskConfig large = config(ConcurrencyLimiter.AIMD, 3);
+            run(engine, small);
+            run(engine, large);
+
+            assertEquals(2, engine.getConcurrencyLimiter(small, "probe").getLimit());
+            assertEquals(3, engine.getConcurrencyLimiter(large, "probe").getLimit());
+
+            // 配置版本变化后按新的配置创建
+            small.getTaskDetailsMap().get("probe").setMaxConcurrency(4);
+            small.setVersion("2");
+            assertNull(engine.getConcurrencyLimiter(small, "probe"));
+            run(engine, small);
+            assertEquals(4, engine.getConcurrencyLimiter(small, "probe").getLimit());
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownAlgorithm() {
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(config("vegas", 10)));
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(config("aimd", 0)));
+    }
+
+    private static void run(TaskEngine engine, TaskConfig taskConfig) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        engine.startEngineAsync(context).join();
+    }
+
+    private static TaskConfig config(String algorithm, int maxConcurrency) {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("probe");
+        detail.setFullClassName(ConcurrencyProbeTask.class.getName());
+        detail.setConcurrencyLimit(algorithm);
+        detail.setMaxConcurrency(maxConcurrency);
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("limit");
+        taskConfig.setArrangeRule(List.of(List.of("probe")));
+        taskConfig.setTaskDetailsMap(Map.of("probe", detail));
+        return taskConfig;
+    }
+
+}
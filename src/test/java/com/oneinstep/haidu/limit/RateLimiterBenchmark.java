@@ -0,0 +1,106 @@
+package com.oneinstep.haidu.limit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 64 个线程同时获取令牌时，CAS 令牌桶与加锁令牌桶的吞吐量对比
+ * 分别测试令牌充足（每秒一亿个）和令牌稀缺（每秒一万个）两种情况
+ * <p>
+ * 运行方式：mvn test -Dtest=RateLimiterBenchmark -Dhaidu.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "haidu.benchmark", matches = "true")
+class RateLimiterBenchmark {
+
+    private static final int THREADS = 64;
+    private static final long DURATION_MILLIS = 1000;
+
+    @Test
+    void compareWithSynchronizedBucket() throws InterruptedException {
+        for (double rate : new double[]{100_000_000, 10_000}) {
+            for (int round = 0; round < 3; round++) {
+                RateLimiter cas = new RateLimiter("benchmark", rate, RateLimiter.defaultBurst(rate));
+                SynchronizedBucket locked = new SynchronizedBucket(rate, RateLimiter.defaultBurst(rate));
+                System.out.printf("rate %.0f/s round %d: cas %s, synchronized %s%n", rate, round,
+                        run(cas::tryAcquire), run(locked::tryAcquire));
+            }
+        }
+    }
+
+    /**
+     * 所有线程在固定时间内不停获取令牌
+     *
+     * @return 每秒调用次数和获得的令牌数量
+     */
+    private static String run(BooleanSupplier tryAcquire) throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        LongAdder granted = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        long[] end = new long[1];
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long localCalls = 0;
+                long localGranted = 0;
+                while (System.nanoTime() < end[0]) {
+                    if (tryAcquire.getAsBoolean()) {
+                        localGranted++;
+                    }
+                    localCalls++;
+                }
+                calls.add(localCalls);
+                granted.add(localGranted);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        end[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return String.format("%.1f M calls/s (%d granted)", calls.sum() / (DURATION_MILLIS * 1000.0), granted.sum());
+    }
+
+    /**
+     * 用 synchronized 保护令牌数量和补充时间的传统令牌桶，作为对照
+     */
+    private static final class SynchronizedBucket {
+
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private SynchronizedBucket(double permitsPerSecond, int burst) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = burst;
+            this.tokens = burst;
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.oneinstep.haidu.limit;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import com.oneinstep.haidu.exception.RateLimitedException;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.NoopTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenSpaceTokens() {
+        RateLimiter limiter = new RateLimiter("t1", 10, 2);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        assertEquals(0, limiter.reserve(now, 0));
+        assertEquals(0, limiter.reserve(now, 0));
+        // 桶已空，不等待时拒绝且不消耗令牌
+        assertEquals(-1, limiter.reserve(now, 0));
+        // 预约下一个令牌，需要等待一个发放间隔
+        assertEquals(100 * MILLIS, limiter.reserve(now, 200 * MILLIS));
+        assertEquals(200 * MILLIS, limiter.reserve(now, 200 * MILLIS));
+        assertEquals(-1, limiter.reserve(now, 200 * MILLIS));
+
+        // 令牌按速率补充，空闲后最多积累 burst 个
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+        assertEquals(0, limiter.reserve(later, 0));
+        assertEquals(0, limiter.reserve(later, 0));
+        assertEquals(-1, limiter.reserve(later, 0));
+    }
+
+    @Test
+    void shouldNotExceedRateUnderContention() throws Exception {
+        RateLimiter limiter = new RateLimiter("t1", 1000, 10);
+        AtomicInteger granted = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long begin = System.nanoTime();
+        long end = begin + 100 * MILLIS;
+        try {
+            List<CompletableFuture<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    while (System.nanoTime() < end) {
+                        if (limiter.tryAcquire()) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }, executor));
+            }
+            start.countDown();
+            workers.forEach(CompletableFuture::join);
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        // 突发容量加上按速率补充的令牌
+        assertTrue(granted.get() <= 10 + elapsedMillis + 1, "granted " + granted.get() + " in " + elapsedMillis + "ms");
+        assertTrue(granted.get() >= 50, "granted " + granted.get());
+    }
+
+    @Test
+    void shouldWaitForTokensWithoutBlockingThreads() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TaskEngine engine = TaskEngine.builder().name("rate").executor(executor).build();
+        try {
+            TaskConfig limited = config(20D, 1, 1000L);
+            TaskConfig unlimited = config(null, null, null);
+            // 预热，避免类加载耗时影响下面的判断
+            run(engine, unlimited).join();
+            long begin = System.nanoTime();
+            List<CompletableFuture<RequestContext>> flows = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                flows.add(run(engine, limited));
+            }
+            // 等待令牌的节点不占用唯一的线程，其他任务流照常执行
+            RequestContext other = run(engine, unlimited).join();
+            assertNotNull(other.getTaskResultMap().get("api"));
+            assertTrue(flows.stream().filter(CompletableFuture::isDone).count() < 6);
+
+            flows.forEach(CompletableFuture::join);
+            long elapsed = System.nanoTime() - begin;
+            // 第一个令牌立即可用，其余 5 个每 50ms 发放一个
+            assertTrue(elapsed >= 240 * MILLIS, "elapsed " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+            assertEquals(20D, engine.getRateLimiter(limited, "api").getPermitsPerSecond());
+            // 另一个配置中的同名任务不共享令牌桶
+            assertNull(engine.getRateLimiter(unlimited, "api"));
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldFailWhenTokenIsNotAvailableInTime() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        TaskEngine engine = TaskEngine.builder().name("rate").executor(executor).build();
+        try {
+            TaskConfig limited = config(1D, 1, null);
+            run(engine, limited).join();
+            CompletionException error = assertThrows(CompletionException.class, () -> run(engine, limited).join());
+            assertInstanceOf(RateLimitedException.class, error.getCause());
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidRate() {
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(config(0D, null, null)));
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(config(10D, 0, null)));
+    }
+
+    private static CompletableFuture<RequestContext> run(TaskEngine engine, TaskConfig taskConfig) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        return engine.startEngineAsync(context);
+    }
+
+    private static TaskConfig config(Double rateLimit, Integer burst, Long waitMillis) {
+        TaskDetail detail = new TaskDetail();
+        detail.setTaskId("api");
+        detail.setFullClassName(NoopTask.class.getName());
+        detail.setRateLimit(rateLimit);
+        detail.setRateLimitBurst(burst);
+        detail.setRateLimitWait(waitMillis);
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName(rateLimit == null ? "unlimited" : "rate");
+        taskConfig.setArrangeRule(List.of(List.of("api")));
+        taskConfig.setTaskDetailsMap(Map.of("api", detail));
+        return taskConfig;
+    }
+
+}
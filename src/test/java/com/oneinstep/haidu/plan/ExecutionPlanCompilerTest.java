@@ -0,0 +1,143 @@
+package com.oneinstep.haidu.plan;
+
+import com.oneinstep.haidu.config.ArrangeMode;
+import com.oneinstep.haidu.config.JsonTaskDefinitionReader;
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskConfigFactory;
+import com.oneinstep.haidu.exception.IllegalTaskConfigException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionPlanCompilerTest {
+
+    private TaskConfig taskConfig;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TaskConfigFactory factory = new TaskConfigFactory(new JsonTaskDefinitionReader());
+        this.taskConfig = factory.createConfig(new InputStreamReader(Objects.requireNonNull(
+                getClass().getResourceAsStream("/config/demo.task.config.json")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldCompileGroupsInTopologicalOrder() {
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        // 11 个任务节点，2 个屏障节点
+        assertEquals(13, plan.size());
+        assertEquals(3, plan.groupCount());
+
+        Set<Integer> visited = new HashSet<>();
+        for (int index : plan.getTopologicalOrder()) {
+            for (int predecessor : plan.getNode(index).predecessors()) {
+                assertTrue(visited.contains(predecessor), "依赖节点必须排在前面");
+            }
+            visited.add(index);
+        }
+        assertEquals(plan.size(), visited.size());
+        for (int g = 0; g < plan.groupCount(); g++) {
+            for (int index : plan.getGroup(g)) {
+                assertEquals(g, plan.getNode(index).getGroupIndex());
+            }
+        }
+
+        PlanNode node1006 = plan.getNode("1006");
+        assertEquals(3, node1006.predecessors().length);
+        PlanNode node1001 = plan.getNode("1001");
+        assertEquals(2, node1001.successors().length);
+    }
+
+    @Test
+    void shouldConnectGroupsThroughBarriers() {
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        // 中间组的起始任务依赖第一组的末端任务 3
+        PlanNode barrier = plan.getNode(plan.getNode("1001").predecessors()[0]);
+        assertTrue(barrier.isBarrier());
+        assertArrayEquals(new int[]{plan.getNode("3").getIndex()}, barrier.predecessors());
+
+        // 最后一组依赖中间组的末端任务 1006
+        PlanNode postBarrier = plan.getNode(plan.getNode("9999").predecessors()[0]);
+        assertTrue(postBarrier.isBarrier());
+        assertArrayEquals(new int[]{plan.getNode("1006").getIndex()}, postBarrier.predecessors());
+    }
+
+    @Test
+    void shouldSkipBarrierForExplicitDependencyInGlobalMode() {
+        taskConfig.setArrangeMode(ArrangeMode.GLOBAL);
+        taskConfig.getTaskDetailsMap().get("9999").setDependsOn(List.of("1001"));
+
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        assertArrayEquals(new int[]{plan.getNode("1001").getIndex()}, plan.getNode("9999").predecessors());
+        assertTrue(plan.getNode(plan.getNode("9998").predecessors()[0]).isBarrier());
+    }
+
+    @Test
+    void shouldKeepBarrierForExplicitDependencyInGroupMode() {
+        taskConfig.getTaskDetailsMap().get("9999").setDependsOn(List.of("1001"));
+
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(taskConfig);
+
+        assertEquals(2, plan.getNode("9999").predecessors().length);
+    }
+
+    @Test
+    void shouldRejectUnknownDependency() {
+        taskConfig.getTaskDetailsMap().get("9999").setDependsOn(List.of("unknown"));
+
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    @Test
+    void shouldDetectCycleAcrossGroups() {
+        taskConfig.getTaskDetailsMap().get("1").setDependsOn(List.of("9999"));
+
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    @Test
+    void shouldDetectCycle() {
+        taskConfig.setArrangeRule(List.of(List.of("1:2", "2:3", "3:1")));
+
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    @Test
+    void shouldRejectTaskInMultipleGroups() {
+        taskConfig.setArrangeRule(List.of(List.of("1,2:3"), List.of("1")));
+
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    @Test
+    void shouldRejectUnknownTask() {
+        taskConfig.setArrangeRule(List.of(List.of("1,2:unknown")));
+
+        assertThrows(IllegalTaskConfigException.class, () -> ExecutionPlanCompiler.compile(taskConfig));
+    }
+
+    @Test
+    void shouldCachePlanUntilVersionChanges() {
+        ExecutionPlanCache cache = new ExecutionPlanCache();
+
+        ExecutionPlan first = cache.get(taskConfig, ExecutionPlanCompiler::compile);
+        assertSame(first, cache.get(taskConfig, ExecutionPlanCompiler::compile));
+
+        taskConfig.setVersion("2");
+        ExecutionPlan second = cache.get(taskConfig, ExecutionPlanCompiler::compile);
+        assertNotSame(first, second);
+        assertEquals("2", second.getVersion());
+        assertEquals(1, cache.size());
+    }
+
+}
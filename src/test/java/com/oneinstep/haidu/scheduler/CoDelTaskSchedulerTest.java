@@ -0,0 +1,163 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.exception.FlowRejectedException;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoDelTaskSchedulerTest {
+
+    @Test
+    void shouldSwitchToLifoWhenQueueStands() throws Exception {
+        CoDelTaskScheduler scheduler = new CoDelTaskScheduler(1, 10, 1);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(CriticalPathTaskSchedulerTest.config(List.of("a"), "a"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(() -> await(gate));
+        try {
+            List<String> order = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(6);
+            for (int i = 0; i < 6; i++) {
+                String name = "t" + i;
+                scheduler.schedule(new ReadyTask(plan, 0, new RequestContext(), 0, () -> {
+                    order.add(name);
+                    sleep(15);
+                    done.countDown();
+                }), executor);
+            }
+            Thread.sleep(50);
+            gate.countDown();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            // 排队时间持续高于目标一个 interval 后切换为后进先出
+            assertEquals(List.of("t0", "t1", "t5", "t4", "t3", "t2"), order);
+            assertFalse(scheduler.isOverloaded(executor));
+        } finally {
+            gate.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRunInlineTasksOnTheirOwnThread() throws Exception {
+        EarliestDeadlineFirstTaskSchedulerTest.assertInlineTasksStayOnTheirOwnThread(new CoDelTaskScheduler());
+    }
+
+    @Test
+    void shouldNotFailAdmittedFlowsWhenPoolQueueIsFull() {
+        assertTrue(runFlows(FifoTaskScheduler.INSTANCE) > 0);
+        assertEquals(0, runFlows(new CoDelTaskScheduler(5, 10_000, 2)));
+    }
+
+    @Test
+    void shouldRejectNewFlowsWhileOverloaded() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TaskEngine engine = TaskEngine.builder().name("codel").executor(executor)
+                .scheduler(new CoDelTaskScheduler(5, 50, 1)).build();
+        try {
+            TaskConfig taskConfig = config(20);
+            // 约 400ms 的积压
+            List<CompletableFuture<RequestContext>> admitted = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                admitted.add(engine.startEngineAsync(context(taskConfig)));
+            }
+            Thread.sleep(150);
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> engine.startEngineAsync(context(taskConfig)).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(FlowRejectedException.class, e.getCause());
+            assertEquals("codel", ((FlowRejectedException) e.getCause()).getArrangeName());
+            assertThrows(FlowRejectedException.class, () -> engine.startEngine(context(taskConfig)));
+
+            // 已接收的任务流全部正常完成，积压消化后恢复接收
+            for (CompletableFuture<RequestContext> flow : admitted) {
+                assertNotNull(flow.get(10, TimeUnit.SECONDS).getTaskResultMap().get("a"));
+            }
+            assertNotNull(engine.startEngineAsync(context(taskConfig)).get(5, TimeUnit.SECONDS));
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 只有 1 个线程、队列容量为 1 的线程池同时执行 10 个任务流
+     *
+     * @return 失败的任务流数量
+     */
+    private static int runFlows(TaskScheduler scheduler) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        TaskEngine engine = TaskEngine.builder().name("codel").executor(executor).scheduler(scheduler).build();
+        try {
+            TaskConfig taskConfig = config(5);
+            List<CompletableFuture<RequestContext>> flows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                flows.add(engine.startEngineAsync(context(taskConfig)));
+            }
+            int failed = 0;
+            for (CompletableFuture<RequestContext> flow : flows) {
+                try {
+                    flow.get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    failed++;
+                }
+            }
+            return failed;
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static TaskConfig config(long sleepMillis) {
+        TaskConfig taskConfig = CriticalPathTaskSchedulerTest.config(List.of("a:b"), "a", "b");
+        taskConfig.setArrangeName("codel");
+        TaskParam sleep = new TaskParam();
+        sleep.setName("sleep");
+        sleep.setType(TaskParam.Type.LONG);
+        sleep.setValue(String.valueOf(sleepMillis / 2));
+        taskConfig.getTaskDetailsMap().values().forEach(detail -> detail.setTaskParams(List.of(sleep)));
+        return taskConfig;
+    }
+
+    private static RequestContext context(TaskConfig taskConfig) {
+        RequestContext context = new RequestContext();
+        context.setTaskConfig(taskConfig);
+        return context;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
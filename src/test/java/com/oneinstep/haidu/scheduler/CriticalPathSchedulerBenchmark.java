@@ -0,0 +1,79 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池饱和时直接提交与关键路径优先调度的任务流平均耗时对比
+ * 每个任务流包含一条 3 个 20ms 任务组成的链和 6 个互相独立的 10ms 任务，8 个线程同时执行 200 个任务流
+ * <p>
+ * 运行方式：mvn test -Dtest=CriticalPathSchedulerBenchmark -Dhaidu.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "haidu.benchmark", matches = "true")
+class CriticalPathSchedulerBenchmark {
+
+    private static final int FLOWS = 200;
+    private static final int THREADS = 8;
+
+    @Test
+    void compareWithFifo() {
+        TaskConfig taskConfig = CriticalPathTaskSchedulerTest.config(
+                List.of("s1", "s2", "s3", "s4", "s5", "s6", "c1:c2", "c2:c3"),
+                "s1", "s2", "s3", "s4", "s5", "s6", "c1", "c2", "c3");
+        taskConfig.getTaskDetailsMap().forEach((taskId, detail) ->
+                detail.setTaskParams(List.of(sleep(taskId.startsWith("c") ? 20 : 10))));
+
+        CriticalPathTaskScheduler criticalPath = new CriticalPathTaskScheduler();
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("round %d: fifo %d ms, critical-path %d ms%n", round,
+                    run(taskConfig, FifoTaskScheduler.INSTANCE), run(taskConfig, criticalPath));
+        }
+    }
+
+    /**
+     * 同时启动所有任务流
+     *
+     * @return 任务流的平均耗时，毫秒
+     */
+    private static long run(TaskConfig taskConfig, TaskScheduler scheduler) {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        TaskEngine engine = TaskEngine.builder().name("benchmark").executor(executor).scheduler(scheduler).build();
+        try {
+            long start = System.nanoTime();
+            List<CompletableFuture<Long>> flows = new ArrayList<>(FLOWS);
+            for (int i = 0; i < FLOWS; i++) {
+                RequestContext context = new RequestContext();
+                context.setTaskConfig(taskConfig);
+                flows.add(engine.startEngineAsync(context).thenApply(c -> System.nanoTime() - start));
+            }
+            long total = 0;
+            for (CompletableFuture<Long> flow : flows) {
+                total += flow.join();
+            }
+            return TimeUnit.NANOSECONDS.toMillis(total / FLOWS);
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static TaskParam sleep(long millis) {
+        TaskParam param = new TaskParam();
+        param.setName("sleep");
+        param.setType(TaskParam.Type.LONG);
+        param.setValue(String.valueOf(millis));
+        return param;
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskDetail;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import com.oneinstep.haidu.task.SleepTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CriticalPathTaskSchedulerTest {
+
+    private ExecutorService executor;
+    private CountDownLatch gate;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        gate = new CountDownLatch(1);
+        // 占住唯一的线程，让就绪节点在队列中排队
+        executor.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldComputeLongestRemainingPath() {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler(1, 0);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(config(List.of("a,b:c", "d"), "a", "b", "c", "d"));
+        scheduler.onTaskComplete("a", ms(10));
+        scheduler.onTaskComplete("b", ms(30));
+        scheduler.onTaskComplete("c", ms(20));
+
+        assertEquals(ms(30), scheduler.remainingPath(plan, plan.getNode("a").getIndex()));
+        assertEquals(ms(50), scheduler.remainingPath(plan, plan.getNode("b").getIndex()));
+        assertEquals(ms(20), scheduler.remainingPath(plan, plan.getNode("c").getIndex()));
+        // 没有历史耗时的任务按默认耗时估算
+        assertEquals(ms(1), scheduler.remainingPath(plan, plan.getNode("d").getIndex()));
+    }
+
+    @Test
+    void shouldRefreshCachedRanksAfterInterval() throws Exception {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler(1, 100);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(config(List.of("a"), "a"));
+        int a = plan.getNode("a").getIndex();
+        assertEquals(ms(1), scheduler.remainingPath(plan, a));
+
+        // 间隔内使用缓存的剩余路径
+        scheduler.onTaskComplete("a", ms(10));
+        assertEquals(ms(1), scheduler.remainingPath(plan, a));
+
+        Thread.sleep(150);
+        // 多个线程同时发现缓存过期，都能读到剩余路径，由其中一个线程重新计算
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(readers.submit(() -> scheduler.remainingPath(plan, a)));
+            }
+            for (Future<Long> result : results) {
+                long value = result.get(5, TimeUnit.SECONDS);
+                assertTrue(value == ms(1) || value == ms(10));
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals(ms(10), scheduler.remainingPath(plan, a));
+    }
+
+    @Test
+    void shouldSmoothHistoricalDurations() {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler();
+        scheduler.onTaskComplete("a", ms(80));
+        scheduler.onTaskComplete("a", ms(160));
+
+        assertEquals(ms(90), scheduler.getEstimate("a"));
+    }
+
+    @Test
+    void shouldRunLongestRemainingPathFirst() throws Exception {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler(1, 0);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(config(List.of("a", "b", "c:d"), "a", "b", "c", "d"));
+        scheduler.onTaskComplete("c", ms(5));
+        scheduler.onTaskComplete("d", ms(50));
+        scheduler.onTaskComplete("b", ms(20));
+        List<String> order = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (String taskId : List.of("a", "b", "c")) {
+            scheduler.schedule(new ReadyTask(plan, plan.getNode(taskId).getIndex(), new RequestContext(), 0, () -> {
+                order.add(taskId);
+                done.countDown();
+            }), executor);
+        }
+        gate.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("c", "b", "a"), order);
+    }
+
+    @Test
+    void shouldPreferEarlierFlows() throws Exception {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler(1, 0);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(config(List.of("a", "b:c"), "a", "b", "c"));
+        scheduler.onTaskComplete("a", ms(10));
+        scheduler.onTaskComplete("b", ms(10));
+        scheduler.onTaskComplete("c", ms(10));
+        List<String> order = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        // 后开始的任务流的关键路径节点，排在先开始的任务流的所有节点之后
+        long[] startTimes = {ms(100), 0, 0};
+        String[] taskIds = {"b", "a", "b"};
+        for (int i = 0; i < taskIds.length; i++) {
+            String name = taskIds[i] + "@" + startTimes[i];
+            scheduler.schedule(new ReadyTask(plan, plan.getNode(taskIds[i]).getIndex(), new RequestContext(),
+                    startTimes[i], () -> {
+                order.add(name);
+                done.countDown();
+            }), executor);
+        }
+        gate.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("b@0", "a@0", "b@" + ms(100)), order);
+    }
+
+    @Test
+    void shouldRethrowRejectionAndDropTask() {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler();
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(config(List.of("a"), "a"));
+        ReadyTask task = new ReadyTask(plan, 0, new RequestContext(), 0, () -> fail("rejected task must not run"));
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(task, command -> {
+            throw new RejectedExecutionException("full");
+        }));
+        // 被拒绝的节点不会被之后的执行单元取出
+        scheduler.schedule(new ReadyTask(plan, 0, new RequestContext(), 0, () -> {
+        }), Runnable::run);
+    }
+
+    @Test
+    void shouldPrioritiseCriticalPathInEngine() throws Exception {
+        CriticalPathTaskScheduler scheduler = new CriticalPathTaskScheduler(1, 0);
+        scheduler.onTaskComplete("long1", ms(50));
+        scheduler.onTaskComplete("long2", ms(50));
+        TaskEngine engine = TaskEngine.builder().name("critical-path").executor(executor).scheduler(scheduler).build();
+        try {
+            RequestContext context = new RequestContext();
+            context.setTaskConfig(config(List.of("short1", "short2", "short3", "long1:long2"),
+                    "short1", "short2", "short3", "long1", "long2"));
+            var future = engine.startEngineAsync(context);
+            gate.countDown();
+            future.get(10, TimeUnit.SECONDS);
+
+            // SleepTask 的结果为完成时刻，单线程下即执行顺序
+            List<String> order = new ArrayList<>(context.getTaskResultMap().keySet());
+            order.sort(Comparator.comparingLong(id -> (Long) context.getTaskResultMap().get(id).getData()));
+            assertEquals("long1", order.get(0));
+            assertEquals("long2", order.get(1));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    static TaskConfig config(List<String> rules, String... taskIds) {
+        Map<String, TaskDetail> details = new HashMap<>();
+        for (String taskId : taskIds) {
+            TaskDetail detail = new TaskDetail();
+            detail.setTaskId(taskId);
+            detail.setFullClassName(SleepTask.class.getName());
+            details.put(taskId, detail);
+        }
+        TaskConfig taskConfig = new TaskConfig();
+        taskConfig.setArrangeName("critical-path");
+        taskConfig.setArrangeRule(List.of(rules));
+        taskConfig.setTaskDetailsMap(details);
+        return taskConfig;
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.oneinstep.haidu.scheduler;
+
+import com.oneinstep.haidu.config.TaskConfig;
+import com.oneinstep.haidu.config.TaskParam;
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.InlineExecutor;
+import com.oneinstep.haidu.core.TaskEngine;
+import com.oneinstep.haidu.plan.ExecutionPlan;
+import com.oneinstep.haidu.plan.ExecutionPlanCompiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarliestDeadlineFirstTaskSchedulerTest {
+
+    @Test
+    void shouldRunEarliestDeadlineFirst() throws Exception {
+        EarliestDeadlineFirstTaskScheduler scheduler = new EarliestDeadlineFirstTaskScheduler(1000);
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(CriticalPathTaskSchedulerTest.config(List.of("a"), "a"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            List<String> order = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(3);
+            long now = System.nanoTime();
+            // 没有截止时间的请求按开始时刻 + 1 秒排序
+            schedule(scheduler, plan, executor, context(null), now, "none", order, done);
+            schedule(scheduler, plan, executor, context(TimeUnit.SECONDS.toNanos(5)), now, "loose", order, done);
+            schedule(scheduler, plan, executor, context(TimeUnit.MILLISECONDS.toNanos(100)), now, "tight", order, done);
+            gate.countDown();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("tight", "none", "loose"), order);
+        } finally {
+            gate.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRunInlineTasksOnTheirOwnThread() throws Exception {
+        assertInlineTasksStayOnTheirOwnThread(new EarliestDeadlineFirstTaskScheduler(1000));
+    }
+
+    /**
+     * 线程 A 执行 INLINE 节点期间就绪的下游 INLINE 节点，不能被线程 B 调度 INLINE 节点时取走执行
+     */
+    static void assertInlineTasksStayOnTheirOwnThread(TaskScheduler scheduler) throws Exception {
+        ExecutionPlan plan = ExecutionPlanCompiler.compile(CriticalPathTaskSchedulerTest.config(List.of("a"), "a"));
+        CountDownLatch upstreamRunning = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        Thread first = new Thread(() -> scheduler.schedule(new ReadyTask(plan, 0, context(null), 0, () -> {
+            scheduler.schedule(new ReadyTask(plan, 0, context(null), 0,
+                    () -> threads.put("downstream", Thread.currentThread().getName())), InlineExecutor.INSTANCE);
+            upstreamRunning.countDown();
+            try {
+                otherDone.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), InlineExecutor.INSTANCE), "flow-a");
+        Thread second = new Thread(() -> {
+            scheduler.schedule(new ReadyTask(plan, 0, context(null), 0,
+                    () -> threads.put("other", Thread.currentThread().getName())), InlineExecutor.INSTANCE);
+            otherDone.countDown();
+        }, "flow-b");
+        first.start();
+        assertTrue(upstreamRunning.await(5, TimeUnit.SECONDS));
+        second.start();
+        first.join(5000);
+        second.join(5000);
+
+        assertEquals("flow-a", threads.get("downstream"));
+        assertEquals("flow-b", threads.get("other"));
+    }
+
+    /**
+     * 负载模拟：2 个线程同时接收 40 个 10ms 的请求，一半请求的截止时间为 160ms，另一半为 5s，两类请求交替到达
+     * 总工作量约 200ms，先进先出时排在队尾的紧急请求错过截止时间，EDF 下紧急请求全部在约 100ms 内完成
+     */
+    @Test
+    void shouldMissFewerDeadlinesThanFifoUnderLoad() {
+        int fifoMisses = simulate(FifoTaskScheduler.INSTANCE);
+        int edfMisses = simulate(new EarliestDeadlineFirstTaskScheduler());
+
+        assertEquals(0, edfMisses);
+        assertTrue(fifoMisses > edfMisses, "fifo misses: " + fifoMisses);
+    }
+
+    private static int simulate(TaskScheduler scheduler) {
+        TaskConfig taskConfig = CriticalPathTaskSchedulerTest.config(List.of("work"), "work");
+        TaskParam sleep = new TaskParam();
+        sleep.setName("sleep");
+        sleep.setType(TaskParam.Type.LONG);
+        sleep.setValue("10");
+        taskConfig.getTaskDetailsMap().get("work").setTaskParams(List.of(sleep));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        TaskEngine engine = TaskEngine.builder().name("edf").executor(executor).scheduler(scheduler).build();
+        try {
+            // 预热，编译执行计划
+            RequestContext warmUp = new RequestContext();
+            warmUp.setTaskConfig(taskConfig);
+            engine.startEngineAsync(warmUp).join();
+
+            List<CompletableFuture<Boolean>> flows = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                RequestContext context = new RequestContext();
+                context.setTaskConfig(taskConfig);
+                context.setDeadlineAfter(i % 2 == 0 ? 5000 : 160, TimeUnit.MILLISECONDS);
+                flows.add(engine.startEngineAsync(context).thenApply(c -> c.getRemainingNanos() < 0));
+            }
+            int misses = 0;
+            for (CompletableFuture<Boolean> flow : flows) {
+                if (flow.join()) {
+                    misses++;
+                }
+            }
+            return misses;
+        } finally {
+            engine.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static RequestContext context(Long remainingNanos) {
+        RequestContext context = new RequestContext();
+        if (remainingNanos != null) {
+            context.setDeadlineAfter(remainingNanos, TimeUnit.NANOSECONDS);
+        }
+        return context;
+    }
+
+    private static void schedule(TaskScheduler scheduler, ExecutionPlan plan, ExecutorService executor,
+                                 RequestContext context, long flowStartTime, String name, List<String> order,
+                                 CountDownLatch done) {
+        scheduler.schedule(new ReadyTask(plan, 0, context, flowStartTime, () -> {
+            order.add(name);
+            done.countDown();
+        }), executor);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.BatchingTask;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 按 userId 批量查询账户，结果为 account-{userId}，用于与 {@link UserLookupTask} 使用相同的任务ID
+ */
+@Slf4j
+public class AccountLookupTask extends BatchingTask<String, String> {
+
+    @Override
+    protected String getKey(RequestContext requestContext) {
+        return (String) getParams(requestContext).get("userId");
+    }
+
+    @Override
+    protected CompletionStage<Map<String, String>> loadBatch(List<String> keys) {
+        Map<String, String> accounts = new HashMap<>();
+        for (String key : keys) {
+            accounts.put(key, "account-" + key);
+        }
+        return CompletableFuture.completedFuture(accounts);
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
@@ -0,0 +1,60 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AsyncAbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步任务，延迟指定时间（参数 delay，单位毫秒）后完成，前几次调用失败（参数 failures）
+ * 结果为完成时的 nanoTime，异步调用被取消时记录在请求参数中
+ */
+@Slf4j
+public class AsyncDelayTask extends AsyncAbstractTask<Long> {
+
+    private int attempts;
+
+    @Override
+    protected CompletionStage<Result<Long>> invokeAsync(RequestContext requestContext) {
+        long delay = ((Number) getParams().getOrDefault("delay", 100)).longValue();
+        int failures = ((Number) getParams().getOrDefault("failures", 0)).intValue();
+        boolean fail = attempts++ < failures;
+        CompletableFuture<Result<Long>> future = CompletableFuture.supplyAsync(() -> {
+            if (fail) {
+                throw new IllegalStateException("mock async failure");
+            }
+            return Result.success(System.nanoTime());
+        }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                requestContext.getRequestParam().put(getTaskId() + ".cancelled", true);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    protected void onCancel(RequestContext context) {
+        context.getRequestParam().put(getTaskId() + ".cancel", true);
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+        requestContext.getRequestParam().put(getTaskId() + ".afterInvoke", true);
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
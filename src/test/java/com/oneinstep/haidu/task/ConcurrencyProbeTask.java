@@ -0,0 +1,48 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 休眠 20ms，统计同时执行的最大实例数量
+ */
+@Slf4j
+public class ConcurrencyProbeTask extends AbstractTask<Integer> {
+
+    public static final AtomicInteger CURRENT = new AtomicInteger();
+    public static final AtomicInteger MAX = new AtomicInteger();
+
+    @Override
+    protected Result<Integer> invoke(RequestContext requestContext) {
+        int current = CURRENT.incrementAndGet();
+        MAX.accumulateAndGet(current, Math::max);
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            CURRENT.decrementAndGet();
+        }
+        return Result.success(current);
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
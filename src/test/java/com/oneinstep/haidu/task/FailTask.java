@@ -0,0 +1,34 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * 总是抛出异常的任务
+ */
+@Slf4j
+public class FailTask extends AbstractTask<String> {
+
+    @Override
+    protected Result<String> invoke(RequestContext requestContext) {
+        throw new IllegalStateException("mock failure: " + getTaskId());
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
@@ -0,0 +1,40 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * 前几次执行失败的任务（参数 failures），结果为完成时的 nanoTime
+ */
+@Slf4j
+public class FlakyTask extends AbstractTask<Long> {
+
+    private int attempts;
+
+    @Override
+    protected Result<Long> invoke(RequestContext requestContext) {
+        Object failures = getParams().getOrDefault("failures", 1);
+        if (attempts++ < ((Number) failures).intValue()) {
+            throw new IllegalStateException("mock failure " + attempts);
+        }
+        return Result.success(System.nanoTime());
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
@@ -0,0 +1,52 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * 长时间阻塞的任务（参数 sleep，单位毫秒），超时、取消和中断记录在请求参数中
+ */
+@Slf4j
+public class HangTask extends AbstractTask<String> {
+
+    @Override
+    protected Result<String> invoke(RequestContext requestContext) {
+        Object sleep = getParams().getOrDefault("sleep", 30000);
+        try {
+            Thread.sleep(((Number) sleep).longValue());
+        } catch (InterruptedException e) {
+            requestContext.getRequestParam().put(getTaskId() + ".interrupted", true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return Result.success("late");
+    }
+
+    @Override
+    protected void onTimeout(RequestContext context) {
+        context.getRequestParam().put(getTaskId() + ".timeout", true);
+    }
+
+    @Override
+    protected void onCancel(RequestContext context) {
+        context.getRequestParam().put(getTaskId() + ".cancel", true);
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
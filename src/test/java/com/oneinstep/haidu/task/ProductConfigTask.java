@@ -0,0 +1,44 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模拟加载商品配置，休眠 200ms，结果为参数 productId，INVOCATIONS 统计真正执行的次数
+ */
+@Slf4j
+public class ProductConfigTask extends AbstractTask<String> {
+
+    public static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+    @Override
+    protected Result<String> invoke(RequestContext requestContext) {
+        INVOCATIONS.incrementAndGet();
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Result.success("config-" + getParams(requestContext).get("productId"));
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
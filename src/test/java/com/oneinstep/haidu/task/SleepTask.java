@@ -0,0 +1,41 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * 休眠指定时间（参数 sleep，单位毫秒），结果为完成时的 nanoTime
+ */
+@Slf4j
+public class SleepTask extends AbstractTask<Long> {
+
+    @Override
+    protected Result<Long> invoke(RequestContext requestContext) {
+        Object sleep = getParams().getOrDefault("sleep", 0);
+        try {
+            Thread.sleep(((Number) sleep).longValue());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return Result.success(System.nanoTime());
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
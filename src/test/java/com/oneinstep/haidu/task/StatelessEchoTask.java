@@ -0,0 +1,34 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.core.StatelessTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+@Slf4j
+@StatelessTask
+public class StatelessEchoTask extends AbstractTask<String> {
+
+    @Override
+    protected Result<String> invoke(RequestContext requestContext) {
+        Object user = getParams(requestContext).get("user");
+        return Result.success(user + "@" + System.identityHashCode(this));
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
@@ -0,0 +1,48 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通常休眠 5ms，SLOW_CALLS 大于 0 时接下来的调用休眠 500ms，结果为休眠的毫秒数
+ * 休眠被中断时计入 CANCELLED
+ */
+@Slf4j
+public class TailLatencyTask extends AbstractTask<Long> {
+
+    public static final AtomicInteger SLOW_CALLS = new AtomicInteger();
+    public static final AtomicInteger CANCELLED = new AtomicInteger();
+
+    @Override
+    protected Result<Long> invoke(RequestContext requestContext) {
+        long sleep = SLOW_CALLS.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 500 : 5;
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            CANCELLED.incrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("cancelled", e);
+        }
+        return Result.success(sleep);
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
@@ -0,0 +1,34 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.AbstractTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * 结果为执行任务的线程名称
+ */
+@Slf4j
+public class ThreadNameTask extends AbstractTask<String> {
+
+    @Override
+    protected Result<String> invoke(RequestContext requestContext) {
+        return Result.success(Thread.currentThread().getName());
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}
@@ -0,0 +1,71 @@
+package com.oneinstep.haidu.task;
+
+import com.oneinstep.haidu.context.RequestContext;
+import com.oneinstep.haidu.core.BatchingTask;
+import com.oneinstep.haidu.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 按 userId 批量查询用户，结果为 user-{userId}，userId 为 missing 时查询不到，为 error 时批量查询失败
+ * BATCH_SIZES 记录每次批量查询的键数量
+ */
+@Slf4j
+public class UserLookupTask extends BatchingTask<String, String> {
+
+    public static final List<Integer> BATCH_SIZES = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected String getKey(RequestContext requestContext) {
+        return (String) getParams(requestContext).get("userId");
+    }
+
+    @Override
+    protected CompletionStage<Map<String, String>> loadBatch(List<String> keys) {
+        BATCH_SIZES.add(keys.size());
+        return CompletableFuture.supplyAsync(() -> {
+            if (keys.contains("error")) {
+                throw new IllegalStateException("mock batch failure");
+            }
+            Map<String, String> users = new HashMap<>();
+            for (String key : keys) {
+                if (!"missing".equals(key)) {
+                    users.put(key, "user-" + key);
+                }
+            }
+            return users;
+        });
+    }
+
+    @Override
+    protected Result<String> toResult(String key, String value) {
+        return value == null ? new Result<>("404", "not found", null) : Result.success(value);
+    }
+
+    @Override
+    protected void beforeInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void afterInvoke(RequestContext requestContext) {
+
+    }
+
+    @Override
+    protected void onError(RequestContext context, Throwable e) {
+        throw new IllegalStateException(e);
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return log;
+    }
+}